@@ -20,10 +20,12 @@ package ch.fihlon.alfons;
 
 import com.vaadin.flow.component.dependency.NpmPackage;
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.io.Serial;
 
@@ -36,6 +38,8 @@ import java.io.Serial;
  */
 @SuppressWarnings("checkstyle:HideUtilityClassConstructor")
 @SpringBootApplication
+@EnableScheduling
+@Push
 @Theme(value = "alfons")
 @PWA(name = "Alfons", shortName = "Alfons")
 @NpmPackage(value = "line-awesome", version = "1.3.0")
@@ -18,11 +18,18 @@
 
 package ch.fihlon.alfons;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.ExecuteListenerProvider;
 import org.jooq.conf.RenderNameCase;
 import org.jooq.conf.Settings;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class JtafJooqConfiguration {
 
@@ -35,4 +42,17 @@ public class JtafJooqConfiguration {
         return new Settings().withRenderNameCase(RenderNameCase.AS_IS);
     }
 
+    /**
+     * Get a jOOQ listener which records the duration of all queries and logs slow queries.
+     * @param meterRegistry the registry for the query metrics
+     * @param slowQueryThreshold queries taking longer are logged
+     * @return the jOOQ listener
+     */
+    @Bean
+    ExecuteListenerProvider queryTimingListenerProvider(@NotNull final MeterRegistry meterRegistry,
+                                                        @Value("${alfons.jooq.slow-query-threshold:PT0.5S}")
+                                                        @NotNull final Duration slowQueryThreshold) {
+        return new DefaultExecuteListenerProvider(new QueryTimingListener(meterRegistry, slowQueryThreshold));
+    }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the duration of every query and records it in a Micrometer timer, tagged with the
+ * application method which executed the query (e.g. {@code RequestService.findRequest}) and the
+ * type of the query. Queries slower than the threshold are logged with their SQL (without bind
+ * values). For lazy fetches, the duration includes the time until the cursor is closed.
+ * <p>
+ * The method is looked up once per query, when it is executed. A lazy cursor is closed by the
+ * code which reads it, so its call stack does not tell where the query was executed.
+ * </p>
+ */
+final class QueryTimingListener implements ExecuteListener {
+
+    static final String METRIC_NAME = "alfons.jooq.query";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryTimingListener.class);
+
+    private static final String START_TIME = QueryTimingListener.class.getName() + ".startTime";
+    private static final String METHOD = QueryTimingListener.class.getName() + ".method";
+    private static final String APPLICATION_PACKAGE = "ch.fihlon.alfons.";
+    private static final String GENERATED_PACKAGE = "ch.fihlon.alfons.data.db.";
+    private static final String UNKNOWN_METHOD = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration slowQueryThreshold;
+
+    QueryTimingListener(@NotNull final MeterRegistry meterRegistry, @NotNull final Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public void start(@NotNull final ExecuteContext ctx) {
+        ctx.data(START_TIME, System.nanoTime());
+    }
+
+    @Override
+    public void executeStart(@NotNull final ExecuteContext ctx) {
+        ctx.data(METHOD, findCallingMethod());
+    }
+
+    @Override
+    public void end(@NotNull final ExecuteContext ctx) {
+        if (!(ctx.data(START_TIME) instanceof Long startTime)) {
+            return;
+        }
+        final var duration = System.nanoTime() - startTime;
+        final var method = ctx.data(METHOD) instanceof String callingMethod ? callingMethod : UNKNOWN_METHOD;
+        final var type = ctx.type().name().toLowerCase(Locale.ROOT);
+
+        Timer.builder(METRIC_NAME)
+                .description("Duration of database queries")
+                .tag("method", method)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration, TimeUnit.NANOSECONDS);
+
+        if (duration > slowQueryThreshold.toNanos()) {
+            LOGGER.warn("Slow query: method={} type={} durationMs={} thresholdMs={} sql=\"{}\"",
+                    method, type, TimeUnit.NANOSECONDS.toMillis(duration), slowQueryThreshold.toMillis(), ctx.sql());
+        }
+    }
+
+    /**
+     * Find the first method of the application on the call stack, which is not part of jOOQ, the
+     * generated code, or this listener. Lambdas are reported as their enclosing method.
+     */
+    private static String findCallingMethod() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE))
+                .filter(frame -> !frame.getClassName().startsWith(GENERATED_PACKAGE))
+                .filter(frame -> !frame.getClassName().equals(QueryTimingListener.class.getName()))
+                .findFirst()
+                .map(frame -> simpleClassName(frame.getClassName()) + "." + enclosingMethodName(frame.getMethodName()))
+                .orElse(UNKNOWN_METHOD));
+    }
+
+    private static String simpleClassName(@NotNull final String className) {
+        final var simpleName = className.substring(className.lastIndexOf('.') + 1);
+        final var nestedClass = simpleName.indexOf('$');
+        return nestedClass > 0 ? simpleName.substring(0, nestedClass) : simpleName;
+    }
+
+    private static String enclosingMethodName(@NotNull final String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            final var end = methodName.indexOf('$', "lambda$".length());
+            return end > 0 ? methodName.substring("lambda$".length(), end) : methodName;
+        }
+        return methodName;
+    }
+
+}
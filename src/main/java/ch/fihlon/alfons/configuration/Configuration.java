@@ -37,5 +37,15 @@ public final class Configuration {
     public String getEmailSenderAddress() {
         return configuration.getOrDefault("email.sender.address", "noreply@localhost");
     }
+    /**
+     * Full-text search is opt-in (setting {@code search.fulltext=true}): it matches the terms of
+     * the filter as word prefixes, so e.g. "oxxed" does not find "Voxxed" anymore, while the
+     * default LIKE filter matches any substring.
+     *
+     * @return {@code true} if the filters use the full-text indexes
+     */
+    public boolean isFulltextSearchEnabled() {
+        return Boolean.parseBoolean(configuration.getOrDefault("search.fulltext", "false"));
+    }
 
 }
@@ -0,0 +1,48 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.entity;
+
+import java.util.List;
+
+public record BudgetEntry(Integer year, Long id, String name,
+                          Integer committedRequests, Long committedAmount,
+                          Integer approvedRequests, Long approvedAmount) {
+
+    /**
+     * The columns of the budget export per year.
+     */
+    public static final List<ExportColumn<BudgetEntry>> YEAR_EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("Year", BudgetEntry::year),
+            new ExportColumn<>("Committed Requests", BudgetEntry::committedRequests),
+            new ExportColumn<>("Committed Amount", BudgetEntry::committedAmount),
+            new ExportColumn<>("Approved Requests", BudgetEntry::approvedRequests),
+            new ExportColumn<>("Approved Amount", BudgetEntry::approvedAmount));
+
+    /**
+     * The columns of the budget export per employee or conference.
+     */
+    public static final List<ExportColumn<BudgetEntry>> EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("Year", BudgetEntry::year),
+            new ExportColumn<>("Name", BudgetEntry::name),
+            new ExportColumn<>("Committed Requests", BudgetEntry::committedRequests),
+            new ExportColumn<>("Committed Amount", BudgetEntry::committedAmount),
+            new ExportColumn<>("Approved Requests", BudgetEntry::approvedRequests),
+            new ExportColumn<>("Approved Amount", BudgetEntry::approvedAmount));
+
+}
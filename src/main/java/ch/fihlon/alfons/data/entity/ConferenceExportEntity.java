@@ -0,0 +1,36 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.entity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record ConferenceExportEntity(Long id, String name, String website, LocalDate beginDate, LocalDate endDate) {
+
+    /**
+     * The columns of the conference export, in the order of the record components.
+     */
+    public static final List<ExportColumn<ConferenceExportEntity>> EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("ID", ConferenceExportEntity::id),
+            new ExportColumn<>("Name", ConferenceExportEntity::name),
+            new ExportColumn<>("Website", ConferenceExportEntity::website),
+            new ExportColumn<>("Begin Date", ConferenceExportEntity::beginDate),
+            new ExportColumn<>("End Date", ConferenceExportEntity::endDate));
+
+}
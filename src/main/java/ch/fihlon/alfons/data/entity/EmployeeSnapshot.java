@@ -0,0 +1,65 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.entity;
+
+import ch.fihlon.alfons.data.db.enums.EmployeeTheme;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable copy of an employee, e.g. to cache the authenticated employee in the session. It
+ * does not contain the password hash. To modify the employee, it must be loaded from the database.
+ */
+public record EmployeeSnapshot(long id, @NotNull String email, @NotNull String firstName, @NotNull String lastName,
+                               boolean admin, @NotNull EmployeeTheme theme, boolean passwordChange) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2714186406529834671L;
+
+    public static EmployeeSnapshot of(@NotNull final Employee employee) {
+        return new EmployeeSnapshot(employee.getId(), employee.getEmail(), employee.getFirstName(), employee.getLastName(),
+                employee.getAdmin(), employee.getTheme(), employee.getPasswordChange());
+    }
+
+    /**
+     * Get the full name (first and last) of the employee.
+     * @return full name
+     */
+    public String fullName() {
+        return String.format("%s %s", firstName, lastName).trim();
+    }
+
+    /**
+     * Get the roles of the employee.
+     * @return a set of roles (maybe empty)
+     */
+    public Set<Role> roles() {
+        final var roles = new HashSet<Role>();
+        roles.add(Role.USER);
+        if (admin) {
+            roles.add(Role.ADMIN);
+        }
+        return Set.copyOf(roles);
+    }
+
+}
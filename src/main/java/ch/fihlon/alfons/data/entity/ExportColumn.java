@@ -0,0 +1,78 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.entity;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A column of an export. The header and the values of an export are defined by the same list of
+ * columns, so they can't get out of sync.
+ *
+ * @param header the header of the column
+ * @param value reads the value of the column from an exported row
+ * @param <T> the type of the exported rows
+ */
+public record ExportColumn<T>(@NotNull String header, @NotNull Value<T> value) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -4316904275083541946L;
+
+    /**
+     * Get the header of an export.
+     *
+     * @param columns the columns of the export
+     * @return the headers of all columns
+     * @param <T> the type of the exported rows
+     */
+    public static <T> String[] header(@NotNull final List<ExportColumn<T>> columns) {
+        return columns.stream()
+                .map(ExportColumn::header)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Get the values of an exported row.
+     *
+     * @param columns the columns of the export
+     * @param row the exported row
+     * @return the values of all columns, in the same order as the header
+     * @param <T> the type of the exported rows
+     */
+    public static <T> Object[] values(@NotNull final List<ExportColumn<T>> columns, @NotNull final T row) {
+        final var values = new Object[columns.size()];
+        for (var i = 0; i < values.length; i++) {
+            values[i] = columns.get(i).value().apply(row);
+        }
+        return values;
+    }
+
+    /**
+     * Reads the value of a column, serializable to be kept in the Vaadin session.
+     *
+     * @param <T> the type of the exported rows
+     */
+    @FunctionalInterface
+    public interface Value<T> extends Function<T, Object>, Serializable { }
+
+}
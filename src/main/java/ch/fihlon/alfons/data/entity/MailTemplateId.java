@@ -18,9 +18,27 @@
 
 package ch.fihlon.alfons.data.entity;
 
+import java.util.Set;
+
 public enum MailTemplateId {
 
-    NEW_APPLICATION,
-    SECURITY_RESET_PASSWORD
+    NEW_APPLICATION(Set.of()),
+    SECURITY_RESET_PASSWORD(Set.of("password"));
+
+    private final Set<String> secretVariables;
+
+    MailTemplateId(final Set<String> secretVariables) {
+        this.secretVariables = secretVariables;
+    }
+
+    /**
+     * Get the names of the variables which contain secrets, e.g. a password. Their values are not
+     * stored in plain text.
+     *
+     * @return the names of the secret variables
+     */
+    public Set<String> getSecretVariables() {
+        return secretVariables;
+    }
 
 }
@@ -21,8 +21,28 @@ import ch.fihlon.alfons.data.db.enums.RequestRole;
 import ch.fihlon.alfons.data.db.enums.RequestStatus;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public record RequestListEntity(Long employeeId, String employeeFirstName, String employeeLastName,
                                 Long conferenceId, String conferenceName, String conferenceWebsite,
                                 LocalDateTime requestDate, RequestRole requestRole, String requestReason,
-                                RequestStatus status, LocalDateTime statusDate, String statusComment) { }
+                                RequestStatus status, LocalDateTime statusDate, String statusComment) {
+
+    /**
+     * The columns of the request export, in the order of the record components.
+     */
+    public static final List<ExportColumn<RequestListEntity>> EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("Employee ID", RequestListEntity::employeeId),
+            new ExportColumn<>("Employee First Name", RequestListEntity::employeeFirstName),
+            new ExportColumn<>("Employee Last Name", RequestListEntity::employeeLastName),
+            new ExportColumn<>("Conference ID", RequestListEntity::conferenceId),
+            new ExportColumn<>("Conference Name", RequestListEntity::conferenceName),
+            new ExportColumn<>("Conference Website", RequestListEntity::conferenceWebsite),
+            new ExportColumn<>("Request Date", RequestListEntity::requestDate),
+            new ExportColumn<>("Request Role", RequestListEntity::requestRole),
+            new ExportColumn<>("Request Reason", RequestListEntity::requestReason),
+            new ExportColumn<>("Status", RequestListEntity::status),
+            new ExportColumn<>("Status Date", RequestListEntity::statusDate),
+            new ExportColumn<>("Status Comment", RequestListEntity::statusComment));
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.event;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the request events to the receivers on this node only. This is enough for a single node,
+ * a cluster needs a fan-out through a shared channel (e.g. a message broker) instead.
+ */
+@Component
+public final class LocalRequestEventFanOut implements RequestEventFanOut {
+
+    private final List<Consumer<RequestEvent>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void broadcast(@NotNull final RequestEvent event) {
+        receivers.forEach(receiver -> receiver.accept(event));
+    }
+
+    @Override
+    public void register(@NotNull final Consumer<RequestEvent> receiver) {
+        receivers.add(receiver);
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.event;
+
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Publishes changes of requests to all subscribers, e.g. the open requests grids. Events are sent
+ * through the {@link RequestEventFanOut} to reach the subscribers on all nodes. Every subscriber
+ * receives the events which arrived during the coalescing interval in one batch, so a burst of
+ * changes (e.g. a bulk approval) results in one update per subscriber.
+ */
+@Component
+public final class RequestEventBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestEventBus.class);
+
+    private final RequestEventFanOut fanOut;
+    private final Duration interval;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "request-event-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RequestEventBus(@NotNull final RequestEventFanOut fanOut,
+                           @Value("${alfons.requests.event-interval:PT0.5S}") @NotNull final Duration interval) {
+        this.fanOut = fanOut;
+        this.interval = interval;
+        fanOut.register(this::deliver);
+    }
+
+    /**
+     * Publish an event. Inside a transaction, the event is published after the commit only, so
+     * subscribers never see changes which are rolled back.
+     *
+     * @param event the event to publish
+     */
+    public void publish(@NotNull final RequestEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fanOut.broadcast(event);
+                }
+            });
+        } else {
+            fanOut.broadcast(event);
+        }
+    }
+
+    /**
+     * Subscribe to the events. The listener is called from a background thread, UI code must use
+     * {@code UI.access} to update components.
+     *
+     * @param listener the listener receiving the coalesced events in the order they were published
+     * @return a callback to unsubscribe
+     */
+    public Runnable subscribe(@NotNull final Consumer<List<RequestEvent>> listener) {
+        final var subscription = new Subscription(listener);
+        subscriptions.add(subscription);
+        return () -> subscriptions.remove(subscription);
+    }
+
+    private void deliver(@NotNull final RequestEvent event) {
+        subscriptions.forEach(subscription -> subscription.add(event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private final class Subscription {
+
+        private final Consumer<List<RequestEvent>> listener;
+        private List<RequestEvent> pending = new ArrayList<>();
+
+        private Subscription(@NotNull final Consumer<List<RequestEvent>> listener) {
+            this.listener = listener;
+        }
+
+        private synchronized void add(@NotNull final RequestEvent event) {
+            pending.add(event);
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flush, interval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            final List<RequestEvent> events;
+            synchronized (this) {
+                events = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                listener.accept(events);
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Failed to deliver {} request event(s): {}", events.size(), e.getMessage(), e);
+            }
+        }
+
+    }
+
+}
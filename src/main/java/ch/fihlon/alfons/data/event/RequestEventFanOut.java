@@ -0,0 +1,44 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.event;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Distributes request events to the event buses of all nodes running the application.
+ */
+public interface RequestEventFanOut {
+
+    /**
+     * Send an event to all nodes, including this one.
+     *
+     * @param event the event to send
+     */
+    void broadcast(@NotNull RequestEvent event);
+
+    /**
+     * Register the receiver of the events on this node.
+     *
+     * @param receiver the receiver of all broadcast events
+     */
+    void register(@NotNull Consumer<RequestEvent> receiver);
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.db.enums.BudgetSummaryDimension;
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
+import ch.fihlon.alfons.data.entity.BudgetEntry;
+import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SelectJoinStep;
+import org.jooq.impl.DSL;
+
+import java.util.List;
+
+import static ch.fihlon.alfons.data.db.tables.BudgetSummary.BUDGET_SUMMARY;
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
+import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
+import static org.jooq.impl.DSL.concat;
+
+/**
+ * The budget is the sum of the conference costs (ticket, travel and accommodation) of the requests.
+ * Committed are the submitted and approved requests, approved only the approved ones. The sums per
+ * year, employee and conference are kept up to date in the table {@code budget_summary} by database
+ * triggers on requests and conferences, so reading the budget does not depend on the number of requests.
+ */
+interface BudgetService extends DSLContextGetter {
+
+    /**
+     * Get the budget per year, the latest year first.
+     *
+     * @return the budget of all years with committed requests
+     */
+    default List<BudgetEntry> getBudgetPerYear() {
+        return selectBudget(DSL.inline(""))
+                .where(budgetCondition(BudgetSummaryDimension.year))
+                .orderBy(BUDGET_SUMMARY.YEAR.desc())
+                .fetchInto(BudgetEntry.class);
+    }
+
+    /**
+     * Get the budget per employee of a year, the highest committed amount first.
+     *
+     * @param year the year of the conferences
+     * @return the budget of all employees with committed requests in the year
+     */
+    default List<BudgetEntry> getBudgetPerEmployee(final int year) {
+        return getBudgetPerEmployee(BUDGET_SUMMARY.YEAR.eq(year));
+    }
+
+    /**
+     * Get the budget per employee of all years, the latest year first and then the highest
+     * committed amount first.
+     *
+     * @return the budget of all employees with committed requests per year
+     */
+    default List<BudgetEntry> getBudgetPerEmployee() {
+        return getBudgetPerEmployee(DSL.noCondition());
+    }
+
+    /**
+     * Get the budget per conference of a year, the highest committed amount first.
+     *
+     * @param year the year of the conferences
+     * @return the budget of all conferences with committed requests in the year
+     */
+    default List<BudgetEntry> getBudgetPerConference(final int year) {
+        return getBudgetPerConference(BUDGET_SUMMARY.YEAR.eq(year));
+    }
+
+    /**
+     * Get the budget per conference of all years, the latest year first and then the highest
+     * committed amount first.
+     *
+     * @return the budget of all conferences with committed requests per year
+     */
+    default List<BudgetEntry> getBudgetPerConference() {
+        return getBudgetPerConference(DSL.noCondition());
+    }
+
+    /**
+     * Recalculate the budget summary from all requests with one grouped query per dimension,
+     * e.g. to repair the summary after the triggers were disabled for a bulk import.
+     */
+    default void rebuildBudget() {
+        dsl().transaction(transaction -> {
+            final var transactionDsl = transaction.dsl();
+            transactionDsl.deleteFrom(BUDGET_SUMMARY).execute();
+            insertBudgetSummary(transactionDsl, BudgetSummaryDimension.year, DSL.inline(0L));
+            insertBudgetSummary(transactionDsl, BudgetSummaryDimension.employee, REQUEST.EMPLOYEE_ID);
+            insertBudgetSummary(transactionDsl, BudgetSummaryDimension.conference, REQUEST.CONFERENCE_ID);
+        });
+    }
+
+    private List<BudgetEntry> getBudgetPerEmployee(@NotNull final Condition yearCondition) {
+        return selectBudget(concat(EMPLOYEE.FIRST_NAME, DSL.value(" "), EMPLOYEE.LAST_NAME))
+                .join(EMPLOYEE).on(EMPLOYEE.ID.eq(BUDGET_SUMMARY.DIMENSION_ID))
+                .where(budgetCondition(BudgetSummaryDimension.employee).and(yearCondition))
+                .orderBy(BUDGET_SUMMARY.YEAR.desc(), BUDGET_SUMMARY.COMMITTED_AMOUNT.desc(), EMPLOYEE.LAST_NAME, EMPLOYEE.FIRST_NAME)
+                .fetchInto(BudgetEntry.class);
+    }
+
+    private List<BudgetEntry> getBudgetPerConference(@NotNull final Condition yearCondition) {
+        return selectBudget(CONFERENCE.NAME)
+                .join(CONFERENCE).on(CONFERENCE.ID.eq(BUDGET_SUMMARY.DIMENSION_ID))
+                .where(budgetCondition(BudgetSummaryDimension.conference).and(yearCondition))
+                .orderBy(BUDGET_SUMMARY.YEAR.desc(), BUDGET_SUMMARY.COMMITTED_AMOUNT.desc(), CONFERENCE.NAME)
+                .fetchInto(BudgetEntry.class);
+    }
+
+    private SelectJoinStep<? extends Record> selectBudget(@NotNull final Field<String> name) {
+        return dsl().select(BUDGET_SUMMARY.YEAR, BUDGET_SUMMARY.DIMENSION_ID, name,
+                        BUDGET_SUMMARY.COMMITTED_REQUESTS, BUDGET_SUMMARY.COMMITTED_AMOUNT,
+                        BUDGET_SUMMARY.APPROVED_REQUESTS, BUDGET_SUMMARY.APPROVED_AMOUNT)
+                .from(BUDGET_SUMMARY);
+    }
+
+    private Condition budgetCondition(@NotNull final BudgetSummaryDimension dimension) {
+        // requests which were declined or withdrawn leave empty groups behind
+        return BUDGET_SUMMARY.DIMENSION.eq(dimension).and(BUDGET_SUMMARY.COMMITTED_REQUESTS.gt(0));
+    }
+
+    private void insertBudgetSummary(@NotNull final DSLContext transactionDsl,
+                                     @NotNull final BudgetSummaryDimension dimension,
+                                     @NotNull final Field<Long> dimensionId) {
+        final var year = DSL.year(CONFERENCE.BEGIN_DATE);
+        final var cost = CONFERENCE.TICKET.plus(CONFERENCE.TRAVEL).plus(CONFERENCE.ACCOMMODATION);
+        final var approved = REQUEST.STATUS.eq(RequestStatus.approved);
+        final List<Field<?>> groupBy = dimension == BudgetSummaryDimension.year ? List.of(year) : List.of(year, dimensionId);
+        transactionDsl.insertInto(BUDGET_SUMMARY,
+                        BUDGET_SUMMARY.YEAR, BUDGET_SUMMARY.DIMENSION, BUDGET_SUMMARY.DIMENSION_ID,
+                        BUDGET_SUMMARY.COMMITTED_REQUESTS, BUDGET_SUMMARY.COMMITTED_AMOUNT,
+                        BUDGET_SUMMARY.APPROVED_REQUESTS, BUDGET_SUMMARY.APPROVED_AMOUNT)
+                .select(DSL.select(year, DSL.inline(dimension), dimensionId,
+                                DSL.count(), DSL.sum(cost).coerce(Long.class),
+                                DSL.count().filterWhere(approved),
+                                DSL.sum(DSL.when(approved, cost).otherwise(DSL.inline(0))).coerce(Long.class))
+                        .from(REQUEST)
+                        .join(CONFERENCE).on(CONFERENCE.ID.eq(REQUEST.CONFERENCE_ID))
+                        .where(REQUEST.STATUS.in(RequestStatus.submitted, RequestStatus.approved))
+                        .groupBy(groupBy))
+                .execute();
+    }
+
+}
@@ -20,12 +20,19 @@ package ch.fihlon.alfons.data.service;
 
 import ch.fihlon.alfons.data.db.tables.records.ConferenceRecord;
 import ch.fihlon.alfons.data.entity.Conference;
+import ch.fihlon.alfons.data.entity.ConferenceExportEntity;
+import ch.fihlon.alfons.data.service.getter.ConfigurationGetter;
+import ch.fihlon.alfons.data.service.getter.CountCacheGetter;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
+import org.jooq.Record;
+import org.jooq.SelectJoinStep;
 import org.jooq.impl.DSL;
 import org.jooq.impl.UpdatableRecordImpl;
 
+import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -33,7 +40,7 @@ import java.util.stream.Stream;
 import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
 import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
 
-interface ConferenceService extends DSLContextGetter {
+interface ConferenceService extends ConfigurationGetter, CountCacheGetter, DSLContextGetter {
 
     default ConferenceRecord newConferenceRecord() {
         final var conferenceRecord = dsl().newRecord(CONFERENCE);
@@ -42,13 +49,18 @@ interface ConferenceService extends DSLContextGetter {
         return conferenceRecord;
     }
 
+    /**
+     * Find conferences. The number of requests is read from the column {@code request_count}, which
+     * is maintained by database triggers on the requests, so no join and grouping is needed.
+     *
+     * @param offset the number of conferences to skip
+     * @param limit the maximum number of conferences to return
+     * @param filter an optional filter value
+     * @return a stream of conferences
+     */
     default Stream<Conference> findConferences(final int offset, final int limit, @Nullable final String filter) {
-        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
-        return dsl().select(CONFERENCE.asterisk(), DSL.count(REQUEST.EMPLOYEE_ID))
-                .from(CONFERENCE)
-                .leftOuterJoin(REQUEST).on(REQUEST.CONFERENCE_ID.eq(CONFERENCE.ID))
-                .where(filterValue == null ? DSL.noCondition() : CONFERENCE.NAME.like(filterValue))
-                .groupBy(CONFERENCE.ID)
+        return selectConference()
+                .where(conferenceFilter(filter))
                 .orderBy(CONFERENCE.BEGIN_DATE.desc().nullsFirst(), CONFERENCE.NAME)
                 .offset(offset)
                 .limit(limit)
@@ -56,6 +68,70 @@ interface ConferenceService extends DSLContextGetter {
                 .stream();
     }
 
+    /**
+     * Find a conference by its ID, e.g. to refresh it in the grid after it was changed.
+     *
+     * @param id the ID of the conference
+     * @return the conference, if it exists
+     */
+    default Optional<Conference> findConference(final long id) {
+        return selectConference()
+                .where(CONFERENCE.ID.eq(id))
+                .fetchOptionalInto(Conference.class);
+    }
+
+    private SelectJoinStep<? extends Record> selectConference() {
+        return dsl().select(CONFERENCE.ID, CONFERENCE.NAME, CONFERENCE.BEGIN_DATE, CONFERENCE.END_DATE, CONFERENCE.WEBSITE,
+                        CONFERENCE.TICKET, CONFERENCE.TRAVEL, CONFERENCE.ACCOMMODATION, CONFERENCE.REQUEST_COUNT)
+                .from(CONFERENCE);
+    }
+
+    /**
+     * Export all conferences matching the filter in a single pass over a forward-only database
+     * cursor. The exported columns are defined by {@link ConferenceExportEntity#EXPORT_COLUMNS},
+     * the request counts are not needed and therefore not joined. The stream must be closed after
+     * use to release the database connection.
+     *
+     * @param filter an optional filter value
+     * @return a lazy stream of the exported conferences
+     */
+    default Stream<ConferenceExportEntity> exportConferences(@Nullable final String filter) {
+        return dsl().select(CONFERENCE.ID, CONFERENCE.NAME, CONFERENCE.WEBSITE, CONFERENCE.BEGIN_DATE, CONFERENCE.END_DATE)
+                .from(CONFERENCE)
+                .where(conferenceFilter(filter))
+                .orderBy(CONFERENCE.BEGIN_DATE.desc().nullsFirst(), CONFERENCE.NAME)
+                .resultSetType(ResultSet.TYPE_FORWARD_ONLY)
+                .resultSetConcurrency(ResultSet.CONCUR_READ_ONLY)
+                .fetchSize(DatabaseService.STREAM_FETCH_SIZE)
+                // executed right away and not on the first read, so the query is attributed to this method
+                .fetchLazy()
+                .stream()
+                .map(record -> record.into(ConferenceExportEntity.class));
+    }
+
+    /**
+     * Count the conferences matching the filter. The result is cached for a short time per filter value,
+     * see {@link #cachedCount(String, java.util.concurrent.Callable)}.
+     *
+     * @param filter an optional filter value
+     * @return the number of conferences
+     */
+    default int countConferences(@Nullable final String filter) {
+        final var cacheKey = "conference:" + (filter == null ? "" : filter.trim());
+        return cachedCount(cacheKey, () -> dsl().fetchCount(CONFERENCE, conferenceFilter(filter)));
+    }
+
+    private Condition conferenceFilter(@Nullable final String filter) {
+        if (filter == null || filter.isBlank()) {
+            return DSL.noCondition();
+        }
+        final var booleanQuery = configuration().isFulltextSearchEnabled()
+                ? FulltextSearch.toBooleanQuery(filter) : Optional.<String>empty();
+        return booleanQuery.isPresent()
+                ? FulltextSearch.match(booleanQuery.get(), CONFERENCE.NAME)
+                : CONFERENCE.NAME.like("%" + filter.trim() + "%");
+    }
+
     default Stream<ConferenceRecord> getFutureConferenceRecords() {
         return dsl().selectFrom(CONFERENCE)
                 .where(CONFERENCE.BEGIN_DATE.greaterThan(LocalDate.now()))
@@ -69,7 +145,22 @@ interface ConferenceService extends DSLContextGetter {
                 .fetchOptional();
     }
 
+    /**
+     * Correct the maintained request counts of all conferences which differ from the actual number
+     * of requests, e.g. after requests were changed while the triggers were disabled.
+     *
+     * @return the number of corrected conferences
+     */
+    default int repairRequestCounts() {
+        final var actualCount = DSL.field(DSL.selectCount().from(REQUEST).where(REQUEST.CONFERENCE_ID.eq(CONFERENCE.ID)));
+        return dsl().update(CONFERENCE)
+                .set(CONFERENCE.REQUEST_COUNT, actualCount)
+                .where(CONFERENCE.REQUEST_COUNT.ne(actualCount))
+                .execute();
+    }
+
     default void deleteConference(final long conferenceId) {
         getConferenceRecord(conferenceId).ifPresent(UpdatableRecordImpl::delete);
+        countCache().invalidateAll();
     }
 }
@@ -20,31 +20,80 @@ package ch.fihlon.alfons.data.service;
 
 import ch.fihlon.alfons.data.db.tables.Configuration;
 import ch.fihlon.alfons.data.db.tables.records.ConfigurationRecord;
+import ch.fihlon.alfons.data.service.getter.CountCacheGetter;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
 import org.jooq.impl.DSL;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.stream.Stream;
 
-interface ConfigurationService extends DSLContextGetter {
+import static ch.fihlon.alfons.data.db.tables.ConfigurationVersion.CONFIGURATION_VERSION;
+
+interface ConfigurationService extends CountCacheGetter, DSLContextGetter {
 
     default ConfigurationRecord newConfiguration() {
         return dsl().newRecord(Configuration.CONFIGURATION);
     }
 
     default Stream<ConfigurationRecord> findConfiguration(final int offset, final int limit, @Nullable final String filter) {
-        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
         return dsl().selectFrom(Configuration.CONFIGURATION)
-                .where(filterValue == null ? DSL.noCondition()
-                        : Configuration.CONFIGURATION.KEY.like(filterValue).or(Configuration.CONFIGURATION.VALUE.like(filterValue)))
+                .where(configurationFilter(filter))
                 .orderBy(Configuration.CONFIGURATION.KEY)
                 .offset(offset)
                 .limit(limit)
                 .stream();
     }
 
+    /**
+     * Stream all configuration settings matching the filter using a lazy database cursor. The
+     * stream must be closed after use to release the database connection.
+     *
+     * @param filter an optional filter value
+     * @return a lazy stream of configuration settings
+     */
+    default Stream<ConfigurationRecord> streamConfiguration(@Nullable final String filter) {
+        return dsl().selectFrom(Configuration.CONFIGURATION)
+                .where(configurationFilter(filter))
+                .orderBy(Configuration.CONFIGURATION.KEY)
+                .fetchSize(DatabaseService.STREAM_FETCH_SIZE)
+                .fetchStream();
+    }
+
+    /**
+     * Count the configuration settings matching the filter. The result is cached for a short time per filter value,
+     * see {@link #cachedCount(String, java.util.concurrent.Callable)}.
+     *
+     * @param filter an optional filter value
+     * @return the number of configuration settings
+     */
+    default int countConfiguration(@Nullable final String filter) {
+        final var cacheKey = "configuration:" + (filter == null ? "" : filter.trim());
+        return cachedCount(cacheKey, () -> dsl().fetchCount(Configuration.CONFIGURATION, configurationFilter(filter)));
+    }
+
+    private Condition configurationFilter(@Nullable final String filter) {
+        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
+        return filterValue == null ? DSL.noCondition()
+                : Configuration.CONFIGURATION.KEY.like(filterValue).or(Configuration.CONFIGURATION.VALUE.like(filterValue));
+    }
+
+    /**
+     * Load the version of the configuration. The version is incremented by database triggers on
+     * every change of the configuration table, so it is a cheap way to detect changes.
+     *
+     * @return the version of the configuration
+     */
+    default long loadConfigurationVersion() {
+        return dsl().select(CONFIGURATION_VERSION.VERSION)
+                .from(CONFIGURATION_VERSION)
+                .where(CONFIGURATION_VERSION.ID.eq((byte) 1))
+                .fetchOptional(CONFIGURATION_VERSION.VERSION)
+                .orElse(0L);
+    }
+
     default ch.fihlon.alfons.configuration.Configuration loadConfigurationFromDatabase() {
         final var configurationData = new HashMap<String, String>();
         dsl().selectFrom(Configuration.CONFIGURATION)
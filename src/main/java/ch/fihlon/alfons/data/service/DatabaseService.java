@@ -19,45 +19,161 @@
 package ch.fihlon.alfons.data.service;
 
 import ch.fihlon.alfons.configuration.Configuration;
+import ch.fihlon.alfons.data.entity.CompiledMailTemplate;
+import ch.fihlon.alfons.data.entity.MailTemplateId;
+import ch.fihlon.alfons.data.event.RequestEventBus;
 import ch.fihlon.alfons.data.service.getter.ConfigurationGetter;
+import ch.fihlon.alfons.data.service.getter.CountCacheGetter;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
 import ch.fihlon.alfons.data.service.getter.MailSenderGetter;
+import ch.fihlon.alfons.data.service.getter.MailTemplateCacheGetter;
+import ch.fihlon.alfons.data.service.getter.RequestEventBusGetter;
+import ch.fihlon.alfons.data.service.getter.SecretCipherGetter;
+import ch.fihlon.alfons.util.SecretCipher;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailSender;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @SuppressWarnings("PMD.AvoidFieldNameMatchingMethodName")
-public class DatabaseService implements ConferenceService, ConfigurationGetter, ConfigurationService, DSLContextGetter, EmployeeService,
-        MailSenderGetter, MailService, MailTemplateService, RequestService {
+public class DatabaseService implements BudgetService, ConferenceService, ConfigurationGetter, ConfigurationService, CountCacheGetter, DSLContextGetter,
+        EmployeeService, LoginThrottleService, MailSenderGetter, MailService, MailTemplateCacheGetter, MailTemplateService,
+        RequestEventBusGetter, RequestService, SecretCipherGetter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseService.class);
+
+    private static final Duration COUNT_CACHE_TTL = Duration.ofSeconds(5);
+    private static final int COUNT_CACHE_SIZE = 1_000;
+    private static final Duration MAIL_TEMPLATE_CACHE_TTL = Duration.ofMinutes(1);
+
+    /**
+     * The number of rows fetched per round trip when streaming large results, e.g. for exports.
+     */
+    static final int STREAM_FETCH_SIZE = 5_000;
 
     private final DSLContext dsl;
     private final MailSender mailSender;
+    private final RequestEventBus requestEventBus;
+    private final SecretCipher secretCipher;
+    private final Cache<String, Integer> countCache;
+    private final Cache<MailTemplateId, CompiledMailTemplate> mailTemplateCache;
 
-    private Configuration configuration;
+    private volatile ConfigurationSnapshot configurationSnapshot;
 
     public DatabaseService(@NotNull final DSLContext dsl,
-                           @NotNull final MailSender mailSender) {
+                           @NotNull final MailSender mailSender,
+                           @NotNull final RequestEventBus requestEventBus,
+                           @Value("${alfons.mail.outbox.secret-key}") @NotNull final String secretKey) {
         this.dsl = dsl;
         this.mailSender = mailSender;
-        this.configuration = loadConfigurationFromDatabase();
+        this.requestEventBus = requestEventBus;
+        if (secretKey.isBlank()) {
+            // a key per node could not decrypt the mails of other nodes or of previous runs
+            throw new IllegalStateException("The secret key of the mail outbox (MAIL_SECRET_KEY) is not configured!");
+        }
+        this.secretCipher = SecretCipher.of(secretKey);
+        this.countCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(COUNT_CACHE_TTL)
+                .maximumSize(COUNT_CACHE_SIZE)
+                .build();
+        this.mailTemplateCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(MAIL_TEMPLATE_CACHE_TTL)
+                .build();
+        this.configurationSnapshot = loadConfigurationSnapshot();
     }
 
     /**
-     * Reload the configuration from the database.
+     * Reload the configuration from the database, e.g. after it was changed on this node. The
+     * cached counts are invalidated, because configuration settings may have been added or deleted.
      */
     public void reloadConfiguration() {
-        configuration = loadConfigurationFromDatabase();
+        configurationSnapshot = loadConfigurationSnapshot();
+        countCache.invalidateAll();
+    }
+
+    /**
+     * Reload the configuration if its version in the database changed, e.g. because it was changed
+     * on another node. This bounds the time a node uses a stale configuration to the poll interval.
+     */
+    @Scheduled(fixedDelayString = "${alfons.configuration.poll-interval:5000}")
+    public void refreshConfiguration() {
+        if (loadConfigurationVersion() != configurationSnapshot.version()) {
+            reloadConfiguration();
+        }
+    }
+
+    /**
+     * Correct the request counts of the conferences, in case they drifted from the actual requests.
+     * They are maintained by database triggers, so this is a safety net and normally finds nothing.
+     */
+    @Scheduled(cron = "${alfons.conference.request-count-repair:0 0 3 * * *}")
+    public void repairConferenceRequestCounts() {
+        final var corrected = repairRequestCounts();
+        if (corrected > 0) {
+            LOGGER.warn("Corrected the request count of {} conference(s)", corrected);
+            countCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Load the version before the configuration: if the configuration changes in between, the
+     * snapshot gets an outdated version and is reloaded with the next refresh.
+     */
+    private ConfigurationSnapshot loadConfigurationSnapshot() {
+        final var version = loadConfigurationVersion();
+        return new ConfigurationSnapshot(version, loadConfigurationFromDatabase());
     }
 
     /**
-     * Get the {@link Configuration}.
+     * Get the {@link Configuration}. This is a lock-free read of an immutable snapshot.
      * @return the {@link Configuration}
      */
     @Override
     public Configuration configuration() {
-        return configuration;
+        return configurationSnapshot.configuration();
+    }
+
+    /**
+     * Get the cache for the results of count queries, keyed by entity and filter value. The entries
+     * expire after five seconds, which bounds how long changes made on other nodes are not counted.
+     * @return the count cache
+     */
+    @Override
+    public Cache<String, Integer> countCache() {
+        return countCache;
+    }
+
+    /**
+     * Invalidate all cached count results, e.g. after items were added or deleted.
+     */
+    public void invalidateCounts() {
+        countCache.invalidateAll();
+    }
+
+    /**
+     * Get the cache for the compiled mail templates. The entries expire after a minute, so changes
+     * made on other nodes are picked up, too.
+     * @return the mail template cache
+     */
+    @Override
+    public Cache<MailTemplateId, CompiledMailTemplate> mailTemplateCache() {
+        return mailTemplateCache;
+    }
+
+    /**
+     * Invalidate all compiled mail templates, e.g. after a mail template was changed or deleted.
+     */
+    public void invalidateMailTemplates() {
+        mailTemplateCache.invalidateAll();
     }
 
     /**
@@ -78,4 +194,24 @@ public class DatabaseService implements ConferenceService, ConfigurationGetter,
         return mailSender;
     }
 
+    /**
+     * Get the {@link RequestEventBus} to publish changes of requests.
+     * @return the {@link RequestEventBus}
+     */
+    @Override
+    public RequestEventBus requestEventBus() {
+        return requestEventBus;
+    }
+
+    /**
+     * Get the {@link SecretCipher} to encrypt secrets, e.g. passwords in the mail outbox.
+     * @return the {@link SecretCipher}
+     */
+    @Override
+    public SecretCipher secretCipher() {
+        return secretCipher;
+    }
+
+    private record ConfigurationSnapshot(long version, @NotNull Configuration configuration) { }
+
 }
@@ -18,14 +18,17 @@
 
 package ch.fihlon.alfons.data.service;
 
+import ch.fihlon.alfons.data.db.enums.EmployeeTheme;
 import ch.fihlon.alfons.data.entity.Employee;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
+import static ch.fihlon.alfons.data.db.tables.EmployeeVersion.EMPLOYEE_VERSION;
 
 interface EmployeeService extends DSLContextGetter {
 
@@ -36,6 +39,54 @@ interface EmployeeService extends DSLContextGetter {
                 .fetchOptionalInto(Employee.class);
     }
 
+    default void updateEmployeeTheme(final long employeeId, @NotNull final EmployeeTheme theme) {
+        dsl().update(EMPLOYEE)
+                .set(EMPLOYEE.THEME, theme)
+                .where(EMPLOYEE.ID.eq(employeeId))
+                .execute();
+    }
+
+    /**
+     * Load the version of the employees. The version is incremented by database triggers on every
+     * change of an employee, so it is a cheap way to detect changes made on any node. The changed
+     * employee is tagged with the incremented version, see {@link #loadEmployeeVersions(long)}.
+     *
+     * @return the version of the employees
+     */
+    default long loadEmployeeVersion() {
+        return dsl().select(EMPLOYEE_VERSION.VERSION)
+                .from(EMPLOYEE_VERSION)
+                .where(EMPLOYEE_VERSION.ID.eq((byte) 1))
+                .fetchOptional(EMPLOYEE_VERSION.VERSION)
+                .orElse(0L);
+    }
+
+    /**
+     * Load the version of the employees when an employee was deleted last.
+     *
+     * @return the version of the last deletion
+     */
+    default long loadDeletedEmployeeVersion() {
+        return dsl().select(EMPLOYEE_VERSION.DELETED_VERSION)
+                .from(EMPLOYEE_VERSION)
+                .where(EMPLOYEE_VERSION.ID.eq((byte) 1))
+                .fetchOptional(EMPLOYEE_VERSION.DELETED_VERSION)
+                .orElse(0L);
+    }
+
+    /**
+     * Load the versions of the employees which changed after a version of the employees.
+     *
+     * @param since the version of the employees
+     * @return the version of each employee changed after it, keyed by employee ID
+     */
+    default Map<Long, Long> loadEmployeeVersions(final long since) {
+        return dsl().select(EMPLOYEE.ID, EMPLOYEE.VERSION)
+                .from(EMPLOYEE)
+                .where(EMPLOYEE.VERSION.gt(since))
+                .fetchMap(EMPLOYEE.ID, EMPLOYEE.VERSION);
+    }
+
     default Stream<Employee> getAllEmployees() {
         return dsl().selectFrom(EMPLOYEE)
                 .orderBy(EMPLOYEE.FIRST_NAME, EMPLOYEE.LAST_NAME)
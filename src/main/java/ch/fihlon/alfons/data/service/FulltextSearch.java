@@ -0,0 +1,98 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Helper to filter using the MariaDB full-text indexes. A filter value is only eligible for full-text
+ * search if all its terms can be found in the index, otherwise the caller has to fall back to a
+ * {@code LIKE} filter.
+ */
+final class FulltextSearch {
+
+    /**
+     * Terms shorter than this are not indexed (MariaDB default of {@code innodb_ft_min_token_size}).
+     */
+    static final int MIN_TERM_LENGTH = 3;
+
+    private static final Pattern OPERATORS = Pattern.compile("[+\\-<>()~*\"@]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Terms which are not indexed (MariaDB default InnoDB stopwords).
+     */
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how", "i", "in",
+            "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when", "where", "who",
+            "will", "with", "und", "www");
+
+    /**
+     * Convert a filter value into a full-text query in boolean mode. Every term of the filter value
+     * is required and matched as a prefix.
+     *
+     * @param filter the filter value
+     * @return the full-text query or empty, if the filter value can't be searched using the full-text index
+     */
+    static Optional<String> toBooleanQuery(@Nullable final String filter) {
+        if (filter == null || filter.isBlank()) {
+            return Optional.empty();
+        }
+        final var terms = OPERATORS.matcher(filter).replaceAll(" ").trim();
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+        final var query = new StringBuilder(terms.length() * 2);
+        for (final var term : WHITESPACE.split(terms)) {
+            if (term.length() < MIN_TERM_LENGTH || STOPWORDS.contains(term.toLowerCase(Locale.ROOT))) {
+                return Optional.empty();
+            }
+            if (!query.isEmpty()) {
+                query.append(' ');
+            }
+            query.append('+').append(term).append('*');
+        }
+        return Optional.of(query.toString());
+    }
+
+    /**
+     * Create a full-text condition. The fields must be covered by a full-text index in the same order.
+     *
+     * @param booleanQuery a full-text query created by {@link #toBooleanQuery(String)}
+     * @param fields the fields of the full-text index
+     * @return the full-text condition
+     */
+    static Condition match(@NotNull final String booleanQuery, @NotNull final Field<?>... fields) {
+        return DSL.condition("match({0}) against ({1} in boolean mode)", DSL.list(fields), DSL.val(booleanQuery));
+    }
+
+    private FulltextSearch() {
+        throw new IllegalStateException("Utility class");
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
+import org.jetbrains.annotations.NotNull;
+import org.jooq.impl.DSL;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static ch.fihlon.alfons.data.db.tables.LoginAttempt.LOGIN_ATTEMPT;
+
+interface LoginThrottleService extends DSLContextGetter {
+
+    /**
+     * Add failed login attempts, counted per IP address and bucket, with a single batch of statements.
+     *
+     * @param failures the number of failed login attempts per bucket, keyed by IP address
+     */
+    default void addLoginFailures(@NotNull final Map<String, Map<Long, Integer>> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        final var queries = failures.entrySet().stream()
+                .flatMap(ip -> ip.getValue().entrySet().stream()
+                        .map(bucket -> dsl().insertInto(LOGIN_ATTEMPT)
+                                .set(LOGIN_ATTEMPT.IP, ip.getKey())
+                                .set(LOGIN_ATTEMPT.BUCKET, bucket.getKey())
+                                .set(LOGIN_ATTEMPT.FAILURES, bucket.getValue())
+                                .onDuplicateKeyUpdate()
+                                .set(LOGIN_ATTEMPT.FAILURES, LOGIN_ATTEMPT.FAILURES.plus(bucket.getValue()))))
+                .toList();
+        dsl().batch(queries).execute();
+    }
+
+    /**
+     * Count the failed login attempts of an IP address.
+     *
+     * @param ip the IP address
+     * @param oldestBucket the oldest bucket to count
+     * @return the number of failed login attempts in the buckets starting with the oldest bucket
+     */
+    default int countLoginFailures(@NotNull final String ip, final long oldestBucket) {
+        final var failures = dsl().select(DSL.sum(LOGIN_ATTEMPT.FAILURES))
+                .from(LOGIN_ATTEMPT)
+                .where(LOGIN_ATTEMPT.IP.eq(ip))
+                .and(LOGIN_ATTEMPT.BUCKET.ge(oldestBucket))
+                .fetchOne(0, Integer.class);
+        return failures != null ? failures : 0;
+    }
+
+    /**
+     * Delete all failed login attempts of the IP addresses.
+     *
+     * @param ips the IP addresses
+     */
+    default void deleteLoginFailures(@NotNull final Collection<String> ips) {
+        if (!ips.isEmpty()) {
+            dsl().deleteFrom(LOGIN_ATTEMPT)
+                    .where(LOGIN_ATTEMPT.IP.in(ips))
+                    .execute();
+        }
+    }
+
+    /**
+     * Delete the failed login attempts which are older than the oldest bucket.
+     *
+     * @param oldestBucket the oldest bucket to keep
+     * @return the number of IP addresses with failed login attempts left
+     */
+    default int deleteExpiredLoginFailures(final long oldestBucket) {
+        dsl().deleteFrom(LOGIN_ATTEMPT)
+                .where(LOGIN_ATTEMPT.BUCKET.lt(oldestBucket))
+                .execute();
+        return dsl().fetchCount(dsl().selectDistinct(LOGIN_ATTEMPT.IP).from(LOGIN_ATTEMPT));
+    }
+
+    /**
+     * Delete the failed login attempts of the IP addresses which failed least recently, so at most
+     * the maximum number of IP addresses is left. This keeps the table bounded even if the
+     * forwarded IP addresses are spoofed.
+     *
+     * @param maxKeys the maximum number of IP addresses to keep
+     * @return the number of IP addresses with failed login attempts left
+     */
+    default int deleteExcessLoginFailures(final long maxKeys) {
+        final var evictedIps = dsl().select(LOGIN_ATTEMPT.IP)
+                .from(LOGIN_ATTEMPT)
+                .groupBy(LOGIN_ATTEMPT.IP)
+                .orderBy(DSL.max(LOGIN_ATTEMPT.BUCKET).desc(), LOGIN_ATTEMPT.IP)
+                .offset(maxKeys)
+                .fetch(LOGIN_ATTEMPT.IP);
+        deleteLoginFailures(evictedIps);
+        return dsl().fetchCount(dsl().selectDistinct(LOGIN_ATTEMPT.IP).from(LOGIN_ATTEMPT));
+    }
+
+}
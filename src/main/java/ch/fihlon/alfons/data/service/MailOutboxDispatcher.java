@@ -0,0 +1,169 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.db.tables.records.MailOutboxRecord;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the mails from the outbox in the background. Due mails are claimed in batches and each
+ * batch is delivered by a worker of a bounded pool in a single SMTP session. Mails which could not
+ * be delivered are retried with an exponential backoff until the maximum number of attempts is
+ * reached; they stay in the outbox for inspection until the retention period is over.
+ */
+@Component
+public final class MailOutboxDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_ERROR_LENGTH = 1_000;
+
+    private final DatabaseService databaseService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retention;
+    private final Semaphore workerPermits;
+    private final ExecutorService workers;
+
+    public MailOutboxDispatcher(@NotNull final DatabaseService databaseService,
+                                @Value("${alfons.mail.outbox.workers:2}") final int workerCount,
+                                @Value("${alfons.mail.outbox.batch-size:20}") final int batchSize,
+                                @Value("${alfons.mail.outbox.max-attempts:10}") final int maxAttempts,
+                                @Value("${alfons.mail.outbox.lease:PT5M}") final Duration lease,
+                                @Value("${alfons.mail.outbox.retention:P7D}") final Duration retention) {
+        this.databaseService = databaseService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.retention = retention;
+        this.workerPermits = new Semaphore(workerCount);
+        final var threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            final var thread = new Thread(runnable, "mail-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Claim due mails from the outbox as long as there are idle workers to deliver them.
+     */
+    @Scheduled(fixedDelayString = "${alfons.mail.outbox.poll-interval:1000}")
+    public void dispatch() {
+        while (workerPermits.tryAcquire()) {
+            try {
+                final var mails = databaseService.claimMails(batchSize, lease, maxAttempts);
+                if (mails.isEmpty()) {
+                    workerPermits.release();
+                    return;
+                }
+                workers.execute(() -> {
+                    try {
+                        deliver(mails);
+                    } finally {
+                        workerPermits.release();
+                    }
+                });
+            } catch (final RuntimeException e) {
+                workerPermits.release();
+                LOGGER.error("Failed to claim mails from the outbox: {}", e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    private void deliver(@NotNull final List<MailOutboxRecord> mails) {
+        final var errors = databaseService.deliverMails(mails);
+        final var delivered = new ArrayList<Long>(mails.size());
+        for (final var mail : mails) {
+            final var error = errors.get(mail.getId());
+            if (error == null) {
+                delivered.add(mail.getId());
+            } else {
+                final var attempts = mail.getAttempts() + 1;
+                LOGGER.warn("Failed to deliver mail {} (attempt {} of {}): {}", mail.getId(), attempts, maxAttempts, error.getMessage());
+                databaseService.rescheduleMail(mail.getId(), describe(error), backoff(attempts));
+            }
+        }
+        databaseService.deleteMails(delivered);
+    }
+
+    /**
+     * Remove the mails which could not be delivered after the retention period.
+     */
+    @Scheduled(cron = "${alfons.mail.outbox.purge:0 15 * * * *}")
+    public void purge() {
+        final var deleted = databaseService.deleteFailedMails(maxAttempts, retention);
+        if (deleted > 0) {
+            LOGGER.warn("Removed {} mail(s) from the outbox which could not be delivered", deleted);
+        }
+    }
+
+    /**
+     * Calculate the delay until the next attempt, doubling it with every failed attempt.
+     *
+     * @param attempts the number of failed attempts
+     * @return the delay until the next attempt
+     */
+    static Duration backoff(final int attempts) {
+        final var exponent = Math.min(Math.max(attempts - 1, 0), MAX_BACKOFF_EXPONENT);
+        final var delay = INITIAL_BACKOFF.multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static String describe(@NotNull final Exception error) {
+        final var description = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    /**
+     * Stop the workers, mails which are being delivered are finished. Mails which are not finished
+     * in time are claimed again after their lease expired.
+     *
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+}
@@ -18,43 +18,260 @@
 
 package ch.fihlon.alfons.data.service;
 
+import ch.fihlon.alfons.data.db.tables.records.MailOutboxRecord;
+import ch.fihlon.alfons.data.entity.CompiledMailTemplate;
 import ch.fihlon.alfons.data.service.getter.MailSenderGetter;
 import ch.fihlon.alfons.data.entity.MailTemplateId;
 import ch.fihlon.alfons.data.service.getter.ConfigurationGetter;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
+import ch.fihlon.alfons.data.service.getter.MailTemplateCacheGetter;
+import ch.fihlon.alfons.data.service.getter.SecretCipherGetter;
+import ch.fihlon.alfons.util.TextTemplate;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.DatePart;
+import org.jooq.impl.DSL;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
-public interface MailService extends ConfigurationGetter, DSLContextGetter, MailSenderGetter, MailTemplateService {
+import static ch.fihlon.alfons.data.db.tables.MailOutbox.MAIL_OUTBOX;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+public interface MailService extends ConfigurationGetter, DSLContextGetter, MailSenderGetter, MailTemplateCacheGetter, MailTemplateService,
+        SecretCipherGetter {
+
+    /**
+     * Separator of the recipients stored in the mail outbox.
+     */
+    String RECIPIENT_SEPARATOR = ",";
+
+    /**
+     * Send a mail based on a template. The mail is only added to the outbox, it is delivered
+     * asynchronously by the {@link MailOutboxDispatcher}. If the template has secret variables (see
+     * {@link MailTemplateId#getSecretVariables()}), the template is stored with its variables and
+     * rendered when the mail is delivered; the values of the secret variables are stored encrypted.
+     *
+     * @param mailTemplateId the ID of the mail template
+     * @param variables the values of the variables used in the template
+     * @param emailAddresses the email addresses of the recipients
+     */
     default void sendMail(@NotNull final MailTemplateId mailTemplateId,
                           @Nullable final Map<String, String> variables,
                           @NotNull final String... emailAddresses) {
-        final var mailTemplateRecord = getMailTemplate(mailTemplateId).orElseThrow();
-        final var message = new SimpleMailMessage();
-        message.setTo(emailAddresses);
-        message.setFrom(configuration().getEmailSenderAddress());
-        message.setSubject(replaceVariables(mailTemplateRecord.getSubject(), variables));
-        message.setText(replaceVariables(mailTemplateRecord.getContentText(), variables));
-        mailSender().send(message);
+        final var mailTemplate = getCompiledMailTemplate(mailTemplateId);
+        final var publicVariables = new HashMap<String, String>();
+        final var secretVariables = new HashMap<String, String>();
+        if (variables != null) {
+            variables.forEach((name, value) -> (mailTemplateId.getSecretVariables().contains(name)
+                    ? secretVariables : publicVariables).put(name, value));
+        }
+        final var insert = dsl().insertInto(MAIL_OUTBOX)
+                .set(MAIL_OUTBOX.SENDER, configuration().getEmailSenderAddress())
+                .set(MAIL_OUTBOX.RECIPIENTS, String.join(RECIPIENT_SEPARATOR, emailAddresses));
+        if (secretVariables.isEmpty()) {
+            insert.set(MAIL_OUTBOX.SUBJECT, mailTemplate.subject().render(publicVariables))
+                    .set(MAIL_OUTBOX.CONTENT_TEXT, mailTemplate.contentText().render(publicVariables))
+                    .execute();
+        } else {
+            // the template is rendered in a single pass on delivery, so values are never parsed as placeholders
+            insert.set(MAIL_OUTBOX.SUBJECT, mailTemplate.subject().text())
+                    .set(MAIL_OUTBOX.CONTENT_TEXT, mailTemplate.contentText().text())
+                    .set(MAIL_OUTBOX.VARIABLES, encodeVariables(publicVariables))
+                    .set(MAIL_OUTBOX.SECRET_VARIABLES, secretCipher().encrypt(encodeVariables(secretVariables)))
+                    .execute();
+        }
     }
 
-    private String replaceVariables(@NotNull final String text,
-                                    @Nullable final Map<String, String> variables) {
-        String returnValue = text;
-        if (variables != null) {
-            for (final var entry : variables.entrySet()) {
-                final var value = Matcher.quoteReplacement(entry.getValue());
-                final var regex = Pattern.quote("${%s}".formatted(entry.getKey()));
-                returnValue = returnValue.replaceAll(regex, value);
+    private static String encodeVariables(@NotNull final Map<String, String> variables) {
+        return variables.entrySet().stream()
+                .map(variable -> URLEncoder.encode(variable.getKey(), UTF_8) + "=" + URLEncoder.encode(variable.getValue(), UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static Map<String, String> decodeVariables(@Nullable final String variables) {
+        if (variables == null || variables.isEmpty()) {
+            return Map.of();
+        }
+        return Arrays.stream(variables.split("&"))
+                .map(variable -> variable.split("=", 2))
+                .collect(Collectors.toMap(
+                        variable -> URLDecoder.decode(variable[0], UTF_8),
+                        variable -> URLDecoder.decode(variable[1], UTF_8)));
+    }
+
+    /**
+     * Get the compiled mail template from the cache or load and compile it. Concurrent requests for
+     * the same template wait for a single load, requests for other templates are not blocked.
+     */
+    private CompiledMailTemplate getCompiledMailTemplate(@NotNull final MailTemplateId mailTemplateId) {
+        try {
+            return mailTemplateCache().get(mailTemplateId, () -> {
+                final var mailTemplateRecord = getMailTemplate(mailTemplateId).orElseThrow();
+                return new CompiledMailTemplate(
+                        TextTemplate.compile(mailTemplateRecord.getSubject()),
+                        TextTemplate.compile(mailTemplateRecord.getContentText()));
+            });
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Claim mails from the outbox which are due for delivery. The claimed mails are locked for the
+     * duration of the lease, so other dispatchers (e.g. on other cluster nodes) skip them. If the
+     * lease expires before the mails were delivered or rescheduled, they are claimed again.
+     *
+     * @param limit the maximum number of mails to claim
+     * @param lease the duration the mails are locked
+     * @param maxAttempts mails with this number of failed attempts are not delivered anymore
+     * @return the claimed mails, oldest first
+     */
+    default List<MailOutboxRecord> claimMails(final int limit, @NotNull final Duration lease, final int maxAttempts) {
+        return dsl().transactionResult(transaction -> {
+            final var now = DSL.currentLocalDateTime();
+            final var mails = transaction.dsl().selectFrom(MAIL_OUTBOX)
+                    .where(MAIL_OUTBOX.NEXT_ATTEMPT.le(now))
+                    .and(MAIL_OUTBOX.LOCKED_UNTIL.isNull().or(MAIL_OUTBOX.LOCKED_UNTIL.lt(now)))
+                    .and(MAIL_OUTBOX.ATTEMPTS.lt(maxAttempts))
+                    .orderBy(MAIL_OUTBOX.ID)
+                    .limit(limit)
+                    .forUpdate()
+                    .skipLocked()
+                    .fetch();
+            if (!mails.isEmpty()) {
+                transaction.dsl().update(MAIL_OUTBOX)
+                        .set(MAIL_OUTBOX.LOCKED_UNTIL, DSL.localDateTimeAdd(now, lease.toSeconds(), DatePart.SECOND))
+                        .where(MAIL_OUTBOX.ID.in(mails.getValues(MAIL_OUTBOX.ID)))
+                        .execute();
+            }
+            return List.copyOf(mails);
+        });
+    }
+
+    /**
+     * Deliver mails in a single SMTP session.
+     *
+     * @param mails the mails to deliver
+     * @return the errors of the mails which could not be delivered, keyed by the ID of the mail
+     */
+    default Map<Long, Exception> deliverMails(@NotNull final List<MailOutboxRecord> mails) {
+        final var errors = new HashMap<Long, Exception>();
+        final var sendableMails = new ArrayList<MailOutboxRecord>(mails.size());
+        final var messages = new ArrayList<SimpleMailMessage>(mails.size());
+        for (final var mail : mails) {
+            try {
+                messages.add(createMessage(mail));
+                sendableMails.add(mail);
+            } catch (final IllegalStateException e) {
+                // e.g. the secrets were encrypted with the key of another node
+                errors.put(mail.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return errors;
+        }
+        try {
+            mailSender().send(messages.toArray(SimpleMailMessage[]::new));
+        } catch (final MailSendException e) {
+            final var failedMessages = new IdentityHashMap<Object, Exception>(e.getFailedMessages());
+            if (failedMessages.isEmpty()) {
+                errors.putAll(allFailed(sendableMails, e));
+            }
+            for (var i = 0; i < messages.size(); i++) {
+                final var error = failedMessages.get(messages.get(i));
+                if (error != null) {
+                    errors.put(sendableMails.get(i).getId(), error);
+                }
             }
+        } catch (final MailException e) {
+            errors.putAll(allFailed(sendableMails, e));
+        }
+        return errors;
+    }
+
+    private SimpleMailMessage createMessage(@NotNull final MailOutboxRecord mail) {
+        final var message = new SimpleMailMessage();
+        message.setFrom(mail.getSender());
+        message.setTo(mail.getRecipients().split(RECIPIENT_SEPARATOR));
+        if (mail.getSecretVariables() == null) {
+            message.setSubject(mail.getSubject());
+            message.setText(mail.getContentText());
+        } else {
+            final var variables = new HashMap<>(decodeVariables(mail.getVariables()));
+            variables.putAll(decodeVariables(secretCipher().decrypt(mail.getSecretVariables())));
+            message.setSubject(TextTemplate.compile(mail.getSubject()).render(variables));
+            message.setText(TextTemplate.compile(mail.getContentText()).render(variables));
         }
-        return returnValue;
+        return message;
+    }
+
+    private static Map<Long, Exception> allFailed(@NotNull final List<MailOutboxRecord> mails, @NotNull final Exception error) {
+        final var errors = new HashMap<Long, Exception>();
+        mails.forEach(mail -> errors.put(mail.getId(), error));
+        return errors;
+    }
+
+    /**
+     * Remove delivered mails from the outbox.
+     *
+     * @param ids the IDs of the delivered mails
+     */
+    default void deleteMails(@NotNull final Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            dsl().deleteFrom(MAIL_OUTBOX)
+                    .where(MAIL_OUTBOX.ID.in(ids))
+                    .execute();
+        }
+    }
+
+    /**
+     * Remove mails which could not be delivered from the outbox after the retention period, so they
+     * do not stay forever.
+     *
+     * @param maxAttempts mails with this number of failed attempts are not delivered anymore
+     * @param retention the time the mails are kept for inspection after they were created
+     * @return the number of removed mails
+     */
+    default int deleteFailedMails(final int maxAttempts, @NotNull final Duration retention) {
+        return dsl().deleteFrom(MAIL_OUTBOX)
+                .where(MAIL_OUTBOX.ATTEMPTS.ge(maxAttempts))
+                .and(MAIL_OUTBOX.CREATED.lt(DSL.localDateTimeSub(DSL.currentLocalDateTime(), retention.toSeconds(), DatePart.SECOND)))
+                .execute();
+    }
+
+    /**
+     * Release a mail which could not be delivered and schedule the next attempt.
+     *
+     * @param id the ID of the mail
+     * @param error a description of the error
+     * @param delay the delay until the next attempt
+     */
+    default void rescheduleMail(final long id, @NotNull final String error, @NotNull final Duration delay) {
+        dsl().update(MAIL_OUTBOX)
+                .set(MAIL_OUTBOX.ATTEMPTS, MAIL_OUTBOX.ATTEMPTS.plus(1))
+                .set(MAIL_OUTBOX.NEXT_ATTEMPT, DSL.localDateTimeAdd(DSL.currentLocalDateTime(), delay.toSeconds(), DatePart.SECOND))
+                .setNull(MAIL_OUTBOX.LOCKED_UNTIL)
+                .set(MAIL_OUTBOX.LAST_ERROR, error)
+                .where(MAIL_OUTBOX.ID.eq(id))
+                .execute();
     }
 
 }
@@ -24,6 +24,7 @@ import ch.fihlon.alfons.data.entity.MailTemplateId;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
 import org.jooq.impl.DSL;
 
 import java.util.ArrayList;
@@ -45,16 +46,35 @@ public interface MailTemplateService extends DSLContextGetter {
     }
 
     default Stream<MailTemplateRecord> findMailTemplate(final int offset, final int limit, @Nullable final String filter) {
-        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
         return dsl().selectFrom(MailTemplate.MAIL_TEMPLATE)
-                .where(filterValue == null ? DSL.noCondition()
-                        : MailTemplate.MAIL_TEMPLATE.ID.like(filterValue).or(MailTemplate.MAIL_TEMPLATE.SUBJECT.like(filterValue)))
+                .where(mailTemplateFilter(filter))
                 .orderBy(MailTemplate.MAIL_TEMPLATE.ID)
                 .offset(offset)
                 .limit(limit)
                 .stream();
     }
 
+    /**
+     * Stream all mail templates matching the filter using a lazy database cursor. The stream must
+     * be closed after use to release the database connection.
+     *
+     * @param filter an optional filter value
+     * @return a lazy stream of mail templates
+     */
+    default Stream<MailTemplateRecord> streamMailTemplates(@Nullable final String filter) {
+        return dsl().selectFrom(MailTemplate.MAIL_TEMPLATE)
+                .where(mailTemplateFilter(filter))
+                .orderBy(MailTemplate.MAIL_TEMPLATE.ID)
+                .fetchSize(DatabaseService.STREAM_FETCH_SIZE)
+                .fetchStream();
+    }
+
+    private Condition mailTemplateFilter(@Nullable final String filter) {
+        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
+        return filterValue == null ? DSL.noCondition()
+                : MailTemplate.MAIL_TEMPLATE.ID.like(filterValue).or(MailTemplate.MAIL_TEMPLATE.SUBJECT.like(filterValue));
+    }
+
     default List<MailTemplateId> findMissingMailTemplateIds() {
         final var mailTemplateIds = new ArrayList<>(List.of(MailTemplateId.values()));
         dsl().selectFrom(MailTemplate.MAIL_TEMPLATE)
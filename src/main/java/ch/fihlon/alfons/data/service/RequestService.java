@@ -20,15 +20,25 @@ package ch.fihlon.alfons.data.service;
 
 import ch.fihlon.alfons.data.db.enums.RequestStatus;
 import ch.fihlon.alfons.data.db.tables.records.RequestRecord;
-import ch.fihlon.alfons.data.entity.Employee;
+import ch.fihlon.alfons.data.entity.RequestKey;
 import ch.fihlon.alfons.data.entity.RequestListEntity;
+import ch.fihlon.alfons.data.event.RequestEvent;
+import ch.fihlon.alfons.data.service.getter.ConfigurationGetter;
+import ch.fihlon.alfons.data.service.getter.CountCacheGetter;
 import ch.fihlon.alfons.data.service.getter.DSLContextGetter;
+import ch.fihlon.alfons.data.service.getter.RequestEventBusGetter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jooq.Condition;
+import org.jooq.Record;
+import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
 import org.jooq.impl.UpdatableRecordImpl;
 
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -37,19 +47,103 @@ import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
 import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
 import static org.jooq.impl.DSL.concat;
 
-interface RequestService extends DSLContextGetter {
+interface RequestService extends ConfigurationGetter, CountCacheGetter, DSLContextGetter, RequestEventBusGetter {
 
-    default RequestRecord newRequestRecord(@Nullable final Employee employee) {
+    default RequestRecord newRequestRecord(@Nullable final Long employeeId) {
         final var requestRecord = dsl().newRecord(REQUEST);
-        if (employee != null) {
-            requestRecord.setEmployeeId(employee.getId());
+        if (employeeId != null) {
+            requestRecord.setEmployeeId(employeeId);
         }
         return requestRecord;
     }
 
     default Stream<RequestListEntity> findRequest(
             final int offset, final int limit, @Nullable final String filter) {
-        final var filterValue = filter == null || filter.isBlank() ? null : "%" + filter.trim() + "%";
+        return selectRequestList(filter)
+                .orderBy(REQUEST.REQUEST_DATE.desc(), REQUEST.EMPLOYEE_ID.desc(), REQUEST.CONFERENCE_ID.desc())
+                .offset(offset)
+                .limit(limit)
+                .fetchInto(RequestListEntity.class)
+                .stream();
+    }
+
+    /**
+     * Find requests using keyset (seek) pagination. Instead of skipping an offset, the query continues
+     * directly after the given request, using the sort key {@code (request_date, employee_id, conference_id)}.
+     * This key is covered by the {@code request_date} index (InnoDB appends the primary key to it), so
+     * the cost of a page does not depend on how deep in the list it is.
+     *
+     * @param after the last request of the previous page or {@code null} for the first page
+     * @param limit the maximum number of requests to return
+     * @param filter an optional filter value
+     * @return a stream of requests
+     */
+    default Stream<RequestListEntity> findRequest(
+            @Nullable final RequestListEntity after, final int limit, @Nullable final String filter) {
+        if (after == null) {
+            return findRequest(0, limit, filter);
+        }
+        return selectRequestList(filter)
+                .orderBy(REQUEST.REQUEST_DATE.desc(), REQUEST.EMPLOYEE_ID.desc(), REQUEST.CONFERENCE_ID.desc())
+                .seek(after.requestDate(), after.employeeId(), after.conferenceId())
+                .limit(limit)
+                .fetchInto(RequestListEntity.class)
+                .stream();
+    }
+
+    /**
+     * Find the requests with the given keys, e.g. to refresh them in the grid after they were changed.
+     *
+     * @param keys the keys of the requests
+     * @return the requests, in no particular order
+     */
+    default List<RequestListEntity> findRequests(@NotNull final Collection<RequestKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        return selectRequestList(null)
+                .and(requestKeyCondition(keys))
+                .fetchInto(RequestListEntity.class);
+    }
+
+    /**
+     * Export all requests matching the filter in a single pass over a forward-only database cursor.
+     * The exported columns are defined by {@link RequestListEntity#EXPORT_COLUMNS}. The stream must
+     * be closed after use to release the database connection.
+     *
+     * @param filter an optional filter value
+     * @return a lazy stream of the exported requests
+     */
+    default Stream<RequestListEntity> exportRequests(@Nullable final String filter) {
+        return selectRequestList(filter)
+                .orderBy(REQUEST.REQUEST_DATE.desc(), REQUEST.EMPLOYEE_ID.desc(), REQUEST.CONFERENCE_ID.desc())
+                .resultSetType(ResultSet.TYPE_FORWARD_ONLY)
+                .resultSetConcurrency(ResultSet.CONCUR_READ_ONLY)
+                .fetchSize(DatabaseService.STREAM_FETCH_SIZE)
+                // executed right away and not on the first read, so the query is attributed to this method
+                .fetchLazy()
+                .stream()
+                .map(record -> record.into(RequestListEntity.class));
+    }
+
+    /**
+     * Count the requests matching the filter. The result is cached for a short time per filter value,
+     * see {@link #cachedCount(String, java.util.concurrent.Callable)}.
+     *
+     * @param filter an optional filter value
+     * @return the number of requests
+     */
+    default int countRequests(@Nullable final String filter) {
+        final var cacheKey = "request:" + (filter == null ? "" : filter.trim());
+        return cachedCount(cacheKey, () -> filter == null || filter.isBlank()
+                ? dsl().fetchCount(REQUEST)
+                : dsl().fetchCount(REQUEST
+                        .leftJoin(EMPLOYEE).on(REQUEST.EMPLOYEE_ID.eq(EMPLOYEE.ID))
+                        .leftJoin(CONFERENCE).on(REQUEST.CONFERENCE_ID.eq(CONFERENCE.ID)),
+                        requestFilter(filter)));
+    }
+
+    private SelectConditionStep<? extends Record> selectRequestList(@Nullable final String filter) {
         return dsl().select(EMPLOYEE.ID, EMPLOYEE.FIRST_NAME, EMPLOYEE.LAST_NAME,
                         CONFERENCE.ID, CONFERENCE.NAME, CONFERENCE.WEBSITE,
                         REQUEST.REQUEST_DATE, REQUEST.ROLE, REQUEST.REASON,
@@ -57,14 +151,32 @@ interface RequestService extends DSLContextGetter {
                 .from(REQUEST)
                 .leftJoin(EMPLOYEE).on(REQUEST.EMPLOYEE_ID.eq(EMPLOYEE.ID))
                 .leftJoin(CONFERENCE).on(REQUEST.CONFERENCE_ID.eq(CONFERENCE.ID))
-                .where(filterValue == null ? DSL.noCondition()
-                        : concat(EMPLOYEE.FIRST_NAME, DSL.value(" "), EMPLOYEE.LAST_NAME).like(filterValue)
-                                .or(CONFERENCE.NAME.like(filterValue)))
-                .orderBy(REQUEST.REQUEST_DATE.desc().nullsFirst())
-                .offset(offset)
-                .limit(limit)
-                .fetchInto(RequestListEntity.class)
-                .stream();
+                .where(requestFilter(filter));
+    }
+
+    private Condition requestKeyCondition(@NotNull final Collection<RequestKey> keys) {
+        return DSL.row(REQUEST.EMPLOYEE_ID, REQUEST.CONFERENCE_ID).in(keys.stream()
+                .map(key -> DSL.row(key.employeeId(), key.conferenceId()))
+                .toList());
+    }
+
+    private Condition requestFilter(@Nullable final String filter) {
+        if (filter == null || filter.isBlank()) {
+            return DSL.noCondition();
+        }
+        final var booleanQuery = configuration().isFulltextSearchEnabled()
+                ? FulltextSearch.toBooleanQuery(filter) : Optional.<String>empty();
+        if (booleanQuery.isPresent()) {
+            final var employee = EMPLOYEE.as("fulltext_employee");
+            final var conference = CONFERENCE.as("fulltext_conference");
+            return REQUEST.EMPLOYEE_ID.in(DSL.select(employee.ID).from(employee)
+                            .where(FulltextSearch.match(booleanQuery.get(), employee.FIRST_NAME, employee.LAST_NAME)))
+                    .or(REQUEST.CONFERENCE_ID.in(DSL.select(conference.ID).from(conference)
+                            .where(FulltextSearch.match(booleanQuery.get(), conference.NAME))));
+        }
+        final var filterValue = "%" + filter.trim() + "%";
+        return concat(EMPLOYEE.FIRST_NAME, DSL.value(" "), EMPLOYEE.LAST_NAME).like(filterValue)
+                .or(CONFERENCE.NAME.like(filterValue));
     }
 
     default Optional<RequestRecord> getRequestRecord(@NotNull final Long employeeId, @NotNull final Long conferenceId) {
@@ -75,6 +187,21 @@ interface RequestService extends DSLContextGetter {
 
     default void deleteRequest(final long employeeId, final long conferenceId) {
         getRequestRecord(employeeId, conferenceId).ifPresent(UpdatableRecordImpl::delete);
+        countCache().invalidateAll();
+        requestEventBus().publish(new RequestEvent(RequestEvent.Type.DELETED, new RequestKey(employeeId, conferenceId)));
+    }
+
+    /**
+     * Announce a request which was stored from its record directly, e.g. by the request dialog.
+     *
+     * @param key the key of the stored request
+     * @param added {@code true} if the request is new, {@code false} if it was changed
+     */
+    default void requestStored(@NotNull final RequestKey key, final boolean added) {
+        if (added) {
+            countCache().invalidateAll();
+        }
+        requestEventBus().publish(new RequestEvent(added ? RequestEvent.Type.ADDED : RequestEvent.Type.CHANGED, key));
     }
 
     default void updateRequestStatus(final long employeeId, final long conferenceId, final RequestStatus status) {
@@ -83,5 +210,41 @@ interface RequestService extends DSLContextGetter {
                 .set(REQUEST.STATUS_DATE, LocalDateTime.now())
                 .where(REQUEST.EMPLOYEE_ID.eq(employeeId).and(REQUEST.CONFERENCE_ID.eq(conferenceId)))
                 .execute();
+        requestEventBus().publish(new RequestEvent(RequestEvent.Type.CHANGED, new RequestKey(employeeId, conferenceId)));
+    }
+
+    /**
+     * Change the status of many requests with a single statement. Only requests which are still
+     * submitted are changed, so requests decided in the meantime (e.g. by another admin) are kept.
+     * The submitted requests are locked first, so only the requests which were actually changed
+     * are announced.
+     *
+     * @param keys the keys of the requests
+     * @param status the new status
+     * @return the number of changed requests
+     */
+    default int updateRequestStatus(@NotNull final Collection<RequestKey> keys, @NotNull final RequestStatus status) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        final var changedKeys = dsl().transactionResult(transaction -> {
+            final var transactionDsl = transaction.dsl();
+            final var submittedKeys = transactionDsl.select(REQUEST.EMPLOYEE_ID, REQUEST.CONFERENCE_ID)
+                    .from(REQUEST)
+                    .where(requestKeyCondition(keys))
+                    .and(REQUEST.STATUS.eq(RequestStatus.submitted))
+                    .forUpdate()
+                    .fetch(record -> new RequestKey(record.value1(), record.value2()));
+            if (!submittedKeys.isEmpty()) {
+                transactionDsl.update(REQUEST)
+                        .set(REQUEST.STATUS, status)
+                        .set(REQUEST.STATUS_DATE, LocalDateTime.now())
+                        .where(requestKeyCondition(submittedKeys))
+                        .execute();
+            }
+            return submittedKeys;
+        });
+        changedKeys.forEach(key -> requestEventBus().publish(new RequestEvent(RequestEvent.Type.CHANGED, key)));
+        return changedKeys.size();
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service.getter;
+
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+public interface CountCacheGetter {
+
+    Cache<String, Integer> countCache();
+
+    /**
+     * Get a count from the cache or count and cache it. Concurrent requests for the same key wait
+     * for a single count, requests for other keys are not blocked. The cache is shared by all
+     * sessions of this node and invalidated by the write operations on this node; changes made on
+     * other nodes are reflected after the entries expired (five seconds).
+     *
+     * @param key the cache key, made of entity and filter value
+     * @param count the count query
+     * @return the number of rows
+     */
+    default int cachedCount(@NotNull final String key, @NotNull final Callable<Integer> count) {
+        try {
+            return countCache().get(key, count);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
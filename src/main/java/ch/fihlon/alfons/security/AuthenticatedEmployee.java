@@ -18,26 +18,60 @@
 
 package ch.fihlon.alfons.security;
 
-import ch.fihlon.alfons.data.entity.Employee;
+import ch.fihlon.alfons.data.entity.EmployeeSnapshot;
 import ch.fihlon.alfons.data.service.DatabaseService;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
 import org.springframework.stereotype.Component;
 
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Provides the authenticated employee. The employee is cached as a read-only snapshot in the
+ * Vaadin session. The snapshot is tagged with the version of the employees when it was loaded,
+ * which database triggers increment on every change of an employee. The changed employee is
+ * tagged with the incremented version, so a snapshot is only outdated if its own employee changed
+ * since (or any employee was deleted). The versions are reloaded after every change made on this
+ * node and polled from the database, so changes made on other nodes are picked up within the poll
+ * interval.
+ */
 @Component
 public final class AuthenticatedEmployee {
 
+    private static final String CACHE_METRIC = "alfons.employee.cache";
+
     private final DatabaseService databaseService;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Map<Long, Long> employeeVersions = new ConcurrentHashMap<>();
+    private volatile long version;
+    private volatile long deletedVersion;
 
-    public AuthenticatedEmployee(@NotNull final DatabaseService databaseService) {
+    public AuthenticatedEmployee(@NotNull final DatabaseService databaseService,
+                                 @NotNull final MeterRegistry meterRegistry) {
         this.databaseService = databaseService;
+        this.cacheHits = Counter.builder(CACHE_METRIC)
+                .description("Lookups of the authenticated employee")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder(CACHE_METRIC)
+                .description("Lookups of the authenticated employee")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        refresh();
     }
 
     private Optional<Authentication> getAuthentication() {
@@ -46,8 +80,86 @@ public final class AuthenticatedEmployee {
                 .filter(authentication -> !(authentication instanceof AnonymousAuthenticationToken));
     }
 
-    public Optional<Employee> get() {
-        return getAuthentication().flatMap(authentication -> databaseService.getEmployeeByEmail(authentication.getName()));
+    /**
+     * Get the authenticated employee. The employee is cached in the Vaadin session until it is
+     * changed. Without a cached employee, the employee loaded for the authentication is used as
+     * long as it was not changed, otherwise it is read from the database.
+     *
+     * @return a read-only snapshot of the authenticated employee or empty if nobody is logged in
+     */
+    public Optional<EmployeeSnapshot> get() {
+        return getAuthentication().flatMap(this::getEmployee);
+    }
+
+    private Optional<EmployeeSnapshot> getEmployee(@NotNull final Authentication authentication) {
+        final var email = authentication.getName();
+        final var currentVersion = version;
+        final var session = VaadinSession.getCurrent();
+        final var lockedSession = session != null && session.hasLock() ? session : null;
+
+        final var cachedEmployee = lockedSession != null ? lockedSession.getAttribute(CachedEmployee.class) : null;
+        if (cachedEmployee != null && cachedEmployee.email().equals(email) && isCurrent(cachedEmployee.employee(), cachedEmployee.version())) {
+            cacheHits.increment();
+            return Optional.of(cachedEmployee.employee());
+        }
+
+        final Optional<EmployeeSnapshot> employee;
+        if (authentication.getPrincipal() instanceof EmployeeUserDetails principal
+                && principal.getUsername().equals(email) && isCurrent(principal.getEmployee(), principal.getVersion())) {
+            cacheHits.increment();
+            employee = Optional.of(principal.getEmployee());
+        } else {
+            cacheMisses.increment();
+            employee = databaseService.getEmployeeByEmail(email).map(EmployeeSnapshot::of);
+        }
+        if (lockedSession != null) {
+            lockedSession.setAttribute(CachedEmployee.class, employee
+                    .map(value -> new CachedEmployee(email, currentVersion, value))
+                    .orElse(null));
+        }
+        return employee;
+    }
+
+    /**
+     * Check if a copy of an employee is current: neither the employee was changed nor any employee
+     * was deleted after the version the copy was loaded with.
+     */
+    private boolean isCurrent(@NotNull final EmployeeSnapshot employee, final long loadedVersion) {
+        return loadedVersion >= deletedVersion && loadedVersion >= employeeVersions.getOrDefault(employee.id(), 0L);
+    }
+
+    /**
+     * Get the version of the employees known to this node. A copy of an employee must be tagged
+     * with the version read before it was loaded.
+     *
+     * @return the current version of the employees
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Reload the versions of the changed employees from the database. This bounds the time a
+     * session uses an outdated employee after it was changed on another node to the poll interval.
+     * The versions are updated before the version of the employees, so a copy tagged with the new
+     * version is never compared to outdated versions.
+     */
+    @Scheduled(fixedDelayString = "${alfons.employee.poll-interval:5000}")
+    public synchronized void refresh() {
+        final var currentVersion = databaseService.loadEmployeeVersion();
+        if (currentVersion != version) {
+            employeeVersions.putAll(databaseService.loadEmployeeVersions(version));
+            deletedVersion = databaseService.loadDeletedEmployeeVersion();
+            version = currentVersion;
+        }
+    }
+
+    /**
+     * Invalidate the cached copies of the modified employees in all sessions of this node. Must be
+     * called after an employee was modified, other nodes pick up the change with their next poll.
+     */
+    public void invalidate() {
+        refresh();
     }
 
     public void logout() {
@@ -60,4 +172,9 @@ public final class AuthenticatedEmployee {
         logoutHandler.logout(VaadinServletRequest.getCurrent().getHttpServletRequest(), null, null);
     }
 
+    private record CachedEmployee(@NotNull String email, long version, @NotNull EmployeeSnapshot employee) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 4391757287206935870L;
+    }
+
 }
@@ -0,0 +1,191 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import ch.fihlon.alfons.data.service.DatabaseService;
+import jakarta.annotation.PreDestroy;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the failed login attempts in the database, so all nodes share them. Changes are collected
+ * in memory and written in batches in the background, so a login never waits for a write. The
+ * count of an IP address includes the changes which were not written yet.
+ *
+ * <p>Changes which are being written are neither in memory nor in the database for the duration of
+ * the write, which only lowers the counts for a moment and is acceptable for throttling. The
+ * changes are written in a single transaction; if it fails, they are collected again and written
+ * with the next flush.</p>
+ *
+ * <p>A reset deletes the failures written so far. Failures which another node collected before the
+ * reset, but writes after it, are kept. They are at most one flush interval old, so a successful
+ * login still clears all but the failures of the last moment before it.</p>
+ *
+ * <p>At most {@code max-keys} IP addresses are tracked, the addresses which failed least recently
+ * are deleted first. This keeps the table bounded even if the forwarded IP addresses are spoofed.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "alfons.security.login-throttle.store", havingValue = "database")
+public final class DatabaseLoginThrottleStore implements LoginThrottleStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseLoginThrottleStore.class);
+
+    private final DatabaseService databaseService;
+    private final long maxKeys;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private volatile long trackedKeys;
+
+    public DatabaseLoginThrottleStore(@NotNull final DatabaseService databaseService,
+                                      @Value("${alfons.security.login-attempts.max-keys:10000}") final long maxKeys) {
+        this.databaseService = databaseService;
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public void addFailure(@NotNull final String ip, final long bucket) {
+        pending.compute(ip, (key, changes) -> (changes != null ? changes : Pending.NONE).withFailure(bucket));
+    }
+
+    @Override
+    public int countFailures(@NotNull final String ip, final long oldestBucket) {
+        final var changes = pending.get(ip);
+        if (changes == null) {
+            return databaseService.countLoginFailures(ip, oldestBucket);
+        }
+        final var pendingFailures = changes.count(oldestBucket);
+        return changes.reset() ? pendingFailures : databaseService.countLoginFailures(ip, oldestBucket) + pendingFailures;
+    }
+
+    @Override
+    public void reset(@NotNull final String ip) {
+        pending.put(ip, Pending.RESET);
+    }
+
+    @Override
+    public long trackedKeys() {
+        return trackedKeys;
+    }
+
+    /**
+     * Write the collected changes to the database and delete the expired failed login attempts and
+     * those of the IP addresses exceeding the maximum.
+     */
+    @Scheduled(fixedDelayString = "${alfons.security.login-throttle.flush-interval:500}")
+    public void flush() {
+        final var written = new HashMap<String, Pending>();
+        final var resets = new ArrayList<String>();
+        final var failures = new HashMap<String, Map<Long, Integer>>();
+        for (final var ip : pending.keySet()) {
+            final var changes = pending.remove(ip);
+            if (changes != null) {
+                written.put(ip, changes);
+                if (changes.reset()) {
+                    resets.add(ip);
+                }
+                if (!changes.failures().isEmpty()) {
+                    failures.put(ip, changes.failures());
+                }
+            }
+        }
+        if (resets.isEmpty() && failures.isEmpty()) {
+            return;
+        }
+
+        try {
+            databaseService.dsl().transaction(configuration -> {
+                databaseService.deleteLoginFailures(resets);
+                databaseService.addLoginFailures(failures);
+            });
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to write {} reset(s) and the failed login attempts of {} IP address(es), retrying with the next flush: {}",
+                    resets.size(), failures.size(), e.getMessage(), e);
+            written.forEach((ip, changes) -> pending.merge(ip, changes, (later, earlier) -> earlier.then(later)));
+            return;
+        }
+
+        try {
+            failures.values().stream()
+                    .flatMap(buckets -> buckets.keySet().stream())
+                    .mapToLong(Long::longValue)
+                    .max()
+                    .ifPresent(newestBucket -> {
+                        final var keys = databaseService.deleteExpiredLoginFailures(newestBucket - LoginAttemptService.BUCKETS + 1);
+                        trackedKeys = keys > maxKeys ? databaseService.deleteExcessLoginFailures(maxKeys) : keys;
+                    });
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to delete the expired failed login attempts: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the collected changes before the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * The changes of an IP address which were not written yet: the failures are added after all
+     * stored failures were deleted, if {@code reset} is {@code true}.
+     */
+    private record Pending(boolean reset, @NotNull Map<Long, Integer> failures) {
+
+        private static final Pending NONE = new Pending(false, Map.of());
+        private static final Pending RESET = new Pending(true, Map.of());
+
+        private Pending withFailure(final long bucket) {
+            final var newFailures = new HashMap<>(failures);
+            newFailures.merge(bucket, 1, Integer::sum);
+            return new Pending(reset, Map.copyOf(newFailures));
+        }
+
+        /**
+         * Combine these changes with the changes collected after them. A later reset replaces
+         * these changes, otherwise the failures are added up.
+         */
+        private Pending then(@NotNull final Pending later) {
+            if (later.reset()) {
+                return later;
+            }
+            final var newFailures = new HashMap<>(failures);
+            later.failures().forEach((bucket, count) -> newFailures.merge(bucket, count, Integer::sum));
+            return new Pending(reset, Map.copyOf(newFailures));
+        }
+
+        private int count(final long oldestBucket) {
+            return failures.entrySet().stream()
+                    .filter(failure -> failure.getKey() >= oldestBucket)
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import ch.fihlon.alfons.data.entity.Employee;
+import ch.fihlon.alfons.data.entity.EmployeeSnapshot;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * The principal of an authenticated employee. It carries a snapshot of the employee which was
+ * loaded for the authentication, so the first requests after the login don't need to load it
+ * again. The snapshot contains no password hash, only the credentials of the user, which are
+ * erased after the authentication, do. The version is the stamp of {@link AuthenticatedEmployee}
+ * at loading time, the employee is only used as long as it was not invalidated since.
+ */
+public final class EmployeeUserDetails extends User {
+
+    @Serial
+    private static final long serialVersionUID = 6504331964731082178L;
+
+    private final EmployeeSnapshot employee;
+    private final long version;
+
+    public EmployeeUserDetails(@NotNull final Employee employee, final long version,
+                               @NotNull final Collection<? extends GrantedAuthority> authorities) {
+        super(employee.getEmail(), employee.getPasswordHash(), authorities);
+        this.employee = EmployeeSnapshot.of(employee);
+        this.version = version;
+    }
+
+    /**
+     * Get the employee as it was loaded for the authentication.
+     * @return a read-only snapshot of the employee
+     */
+    public EmployeeSnapshot getEmployee() {
+        return employee;
+    }
+
+    /**
+     * Get the version of the employee, see {@link AuthenticatedEmployee#version()}.
+     * @return the version of the employee
+     */
+    public long getVersion() {
+        return version;
+    }
+
+}
@@ -18,6 +18,7 @@
 
 package ch.fihlon.alfons.security;
 
+import ch.fihlon.alfons.data.entity.EmployeeSnapshot;
 import ch.fihlon.alfons.ui.view.login.ChangePasswordView;
 import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.server.ServiceInitEvent;
@@ -48,7 +49,7 @@ public final class ForcePasswordChange implements VaadinServiceInitListener {
     }
 
     private void beforeEnter(@NotNull final BeforeEnterEvent event) {
-        if (authenticatedEmployee.get().isPresent() && authenticatedEmployee.get().get().getPasswordChange()) {
+        if (authenticatedEmployee.get().filter(EmployeeSnapshot::passwordChange).isPresent()) {
             event.forwardTo(ChangePasswordView.class);
         }
     }
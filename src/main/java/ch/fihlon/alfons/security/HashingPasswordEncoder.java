@@ -0,0 +1,154 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the password hashes on a dedicated, bounded executor. Hashing is CPU bound by design,
+ * without a bound a burst of logins occupies all request threads with hashing and stalls the UI
+ * traffic. The calling thread waits for the result, but at most {@code threads} hashes are computed
+ * at the same time and at most {@code queueSize} wait for a thread. Further requests are rejected
+ * immediately with a {@link PasswordHashingRejectedException}.
+ */
+public final class HashingPasswordEncoder implements PasswordEncoder {
+
+    static final String METRIC_NAME = "alfons.security.hashing";
+
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    /**
+     * Create a password encoder computing the hashes of the delegate on a bounded executor.
+     *
+     * @param delegate the password encoder computing the hashes
+     * @param threads the number of hashes computed at the same time
+     * @param queueSize the number of hashes waiting for a thread
+     * @param meterRegistry the registry for the hashing metrics
+     */
+    public HashingPasswordEncoder(@NotNull final PasswordEncoder delegate, final int threads, final int queueSize,
+                                  @NotNull final MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        final var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    final var thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder(METRIC_NAME)
+                .description("Duration of password hashing, including the time waiting in the queue")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder(METRIC_NAME)
+                .description("Duration of password hashing, including the time waiting in the queue")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejections = Counter.builder(METRIC_NAME + ".rejected")
+                .description("Password hashing requests rejected because the executor was saturated")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashing requests waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes currently computed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(@NotNull final CharSequence rawPassword) {
+        return execute(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(@NotNull final CharSequence rawPassword, @Nullable final String encodedPassword) {
+        return execute(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(@Nullable final String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(@NotNull final Timer timer, @NotNull final Callable<T> task) {
+        final var start = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (final RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordHashingRejectedException(retryAfter(timer));
+        }
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password hashing was interrupted!", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AuthenticationServiceException("Password hashing failed!", e.getCause());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Estimate the time until the queue is processed, based on the mean duration of the hashing.
+     */
+    private Duration retryAfter(@NotNull final Timer timer) {
+        final var rounds = executor.getQueue().size() / executor.getMaximumPoolSize() + 1;
+        final var estimate = Duration.ofNanos((long) (timer.mean(TimeUnit.NANOSECONDS) * rounds));
+        final var seconds = Duration.ofSeconds(estimate.toSeconds() + (estimate.toNanosPart() > 0 ? 1 : 0));
+        return seconds.compareTo(MIN_RETRY_AFTER) < 0 ? MIN_RETRY_AFTER : seconds;
+    }
+
+    /**
+     * Stop the hashing threads, called by Spring when the application shuts down.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the failed login attempts in the memory of this node. This is the default, it is enough
+ * for a single node. The number of tracked IP addresses is bounded, the least recently used
+ * addresses are evicted first. This keeps the memory bounded even if the forwarded IP addresses
+ * are spoofed.
+ */
+@Component
+@ConditionalOnProperty(name = "alfons.security.login-throttle.store", havingValue = "memory", matchIfMissing = true)
+public final class InMemoryLoginThrottleStore implements LoginThrottleStore {
+
+    private final Cache<String, SlidingWindow> attempts;
+
+    @Autowired
+    public InMemoryLoginThrottleStore(@Value("${alfons.security.login-attempts.window:PT24H}") @NotNull final Duration window,
+                                      @Value("${alfons.security.login-attempts.max-keys:10000}") final long maxKeys) {
+        this(Clock.systemUTC(), window, maxKeys);
+    }
+
+    InMemoryLoginThrottleStore(@NotNull final Clock clock, @NotNull final Duration window, final long maxKeys) {
+        this.attempts = CacheBuilder.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(window)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void addFailure(@NotNull final String ip, final long bucket) {
+        try {
+            attempts.get(ip, SlidingWindow::new).increment(bucket);
+        } catch (final ExecutionException e) {
+            // creating a sliding window can't fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int countFailures(@NotNull final String ip, final long oldestBucket) {
+        final var slidingWindow = attempts.getIfPresent(ip);
+        return slidingWindow != null ? slidingWindow.count(oldestBucket) : 0;
+    }
+
+    @Override
+    public void reset(@NotNull final String ip) {
+        attempts.invalidate(ip);
+    }
+
+    @Override
+    public long trackedKeys() {
+        return attempts.size();
+    }
+
+    /**
+     * The failed attempts of one IP address, counted in a ring of buckets. Each slot remembers
+     * the bucket it counts, so a slot of an expired bucket is reset when it is reused.
+     */
+    private static final class SlidingWindow {
+
+        private final long[] buckets = new long[LoginAttemptService.BUCKETS];
+        private final int[] counts = new int[LoginAttemptService.BUCKETS];
+
+        private synchronized void increment(final long bucket) {
+            final var slot = (int) (bucket % LoginAttemptService.BUCKETS);
+            if (buckets[slot] != bucket) {
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+        }
+
+        private synchronized int count(final long oldestBucket) {
+            var count = 0;
+            for (var slot = 0; slot < LoginAttemptService.BUCKETS; slot++) {
+                if (buckets[slot] >= oldestBucket) {
+                    count += counts[slot];
+                }
+            }
+            return count;
+        }
+
+    }
+
+}
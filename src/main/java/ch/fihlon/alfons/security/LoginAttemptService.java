@@ -18,53 +18,103 @@
 
 package ch.fihlon.alfons.security;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import com.google.common.net.InetAddresses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.time.Clock;
+import java.time.Duration;
 
+/**
+ * Counts the failed login attempts per IP address in a sliding window. An IP address is blocked
+ * while it has at least the maximum number of failed attempts within the window. The window is
+ * split into buckets, so old attempts expire one bucket at a time instead of all at once. The
+ * attempts are kept in a {@link LoginThrottleStore}, which may be shared by all nodes.
+ *
+ * <p>The IP address is taken from the {@code X-Forwarded-For} header, which is controlled by the
+ * client. It is normalized before it is stored, anything that is not an IP address is counted as
+ * one unknown address.</p>
+ */
 @Service
 public final class LoginAttemptService {
 
-    public static final int MAX_LOGIN_ATTEMPTS = 3;
-    private final LoadingCache<String, Integer> attemptsCache;
+    static final String METRIC_NAME = "alfons.security.login-attempts";
+    static final int BUCKETS = 24;
+    static final String UNKNOWN_IP = "unknown";
 
-    public LoginAttemptService() {
-        super();
-        attemptsCache = CacheBuilder.newBuilder().
-                expireAfterWrite(1, TimeUnit.DAYS).build(new CacheLoader<>() {
-                    @SuppressFBWarnings("NP_NONNULL_RETURN_VIOLATION") // always returns hard coded value 0
-                    public @NotNull Integer load(@NotNull final String ip) {
-                        return 0;
-                    }
-                });
+    private final Clock clock;
+    private final LoginThrottleStore store;
+    private final int maxAttempts;
+    private final Duration window;
+    private final long bucketMillis;
+    private final Counter blocked;
+
+    @Autowired
+    public LoginAttemptService(@NotNull final LoginThrottleStore store,
+                               @Value("${alfons.security.login-attempts.max:3}") final int maxAttempts,
+                               @Value("${alfons.security.login-attempts.window:PT24H}") @NotNull final Duration window,
+                               @NotNull final MeterRegistry meterRegistry) {
+        this(Clock.systemUTC(), store, maxAttempts, window, meterRegistry);
+    }
+
+    LoginAttemptService(@NotNull final Clock clock, @NotNull final LoginThrottleStore store, final int maxAttempts,
+                        @NotNull final Duration window, @NotNull final MeterRegistry meterRegistry) {
+        this.clock = clock;
+        this.store = store;
+        this.maxAttempts = maxAttempts;
+        this.window = window;
+        this.bucketMillis = Math.max(1, window.toMillis() / BUCKETS);
+        this.blocked = Counter.builder(METRIC_NAME + ".blocked")
+                .description("Login requests from blocked IP addresses")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".keys", store, LoginThrottleStore::trackedKeys)
+                .description("IP addresses with failed login attempts")
+                .register(meterRegistry);
     }
 
     public void loginSucceeded(@NotNull final String ip) {
-        attemptsCache.invalidate(ip);
+        store.reset(normalize(ip));
     }
 
     public void loginFailed(@NotNull final String ip) {
-        int attempts;
-        try {
-            attempts = attemptsCache.get(ip);
-        } catch (final ExecutionException e) {
-            attempts = 0;
-        }
-        attempts++;
-        attemptsCache.put(ip, attempts);
+        store.addFailure(normalize(ip), currentBucket());
     }
 
     public boolean isBlocked(@NotNull final String ip) {
-        try {
-            return attemptsCache.get(ip) >= MAX_LOGIN_ATTEMPTS;
-        } catch (final ExecutionException e) {
-            return false;
+        if (store.countFailures(normalize(ip), currentBucket() - BUCKETS + 1) >= maxAttempts) {
+            blocked.increment();
+            return true;
         }
+        return false;
     }
+
+    /**
+     * Get the duration of the sliding window, an IP address is blocked for at most this duration.
+     * @return the duration of the sliding window
+     */
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * Get the canonical form of an IP address, so it has a bounded length and every address has
+     * exactly one key. The address is parsed without a DNS lookup.
+     *
+     * @param ip the IP address, as sent by the client
+     * @return the canonical IP address or {@link #UNKNOWN_IP} if it is not an IP address
+     */
+    static String normalize(@NotNull final String ip) {
+        final var address = ip.trim();
+        return InetAddresses.isInetAddress(address) ? InetAddresses.toAddrString(InetAddresses.forString(address)) : UNKNOWN_IP;
+    }
+
+    private long currentBucket() {
+        return clock.millis() / bucketMillis;
+    }
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Stores the failed login attempts for the {@link LoginAttemptService}. The attempts are counted
+ * per IP address in buckets, a bucket is a slice of the sliding window identified by its number.
+ */
+public interface LoginThrottleStore {
+
+    /**
+     * Add a failed login attempt.
+     *
+     * @param ip the IP address
+     * @param bucket the bucket of the failed login attempt
+     */
+    void addFailure(@NotNull String ip, long bucket);
+
+    /**
+     * Count the failed login attempts of an IP address.
+     *
+     * @param ip the IP address
+     * @param oldestBucket the oldest bucket to count
+     * @return the number of failed login attempts in the buckets starting with the oldest bucket
+     */
+    int countFailures(@NotNull String ip, long oldestBucket);
+
+    /**
+     * Remove all failed login attempts of an IP address.
+     *
+     * @param ip the IP address
+     */
+    void reset(@NotNull String ip);
+
+    /**
+     * Get the number of IP addresses with failed login attempts.
+     *
+     * @return the number of IP addresses, may be an estimate
+     */
+    long trackedKeys();
+
+}
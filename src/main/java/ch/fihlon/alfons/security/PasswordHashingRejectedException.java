@@ -0,0 +1,52 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.io.Serial;
+import java.time.Duration;
+
+/**
+ * Thrown if a password can't be hashed because the hashing executor is saturated. The request is
+ * rejected immediately instead of waiting in an unbounded queue, the client should retry after the
+ * suggested delay. It is not a failed login, so it does not count as a failed login attempt.
+ */
+public final class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    @Serial
+    private static final long serialVersionUID = -3276542185936461127L;
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(@NotNull final Duration retryAfter) {
+        super("The server is busy, please try again in %d seconds.".formatted(retryAfter.toSeconds()));
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get the suggested delay before trying again.
+     * @return the delay before trying again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+}
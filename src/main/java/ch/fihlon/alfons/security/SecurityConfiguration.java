@@ -20,7 +20,9 @@ package ch.fihlon.alfons.security;
 
 import ch.fihlon.alfons.ui.view.login.LoginView;
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -39,12 +41,23 @@ public class SecurityConfiguration extends VaadinWebSecurity {
     public static final String LOGOUT_URL = "/";
 
     /**
-     * Get a password encoder.
+     * Get a password encoder. The hashes are computed on a bounded executor, so a burst of logins
+     * can't occupy all request threads. Existing hashes with a lower strength are upgraded on login.
+     *
+     * @param strength the BCrypt strength (log rounds) for new hashes
+     * @param threads the number of hashes computed at the same time, 0 for the number of processors
+     * @param queueSize the number of hashes waiting for a thread before new requests are rejected
+     * @param meterRegistry the registry for the hashing metrics
      * @return a password encoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10, new SecureRandom());
+    public PasswordEncoder passwordEncoder(@Value("${alfons.security.bcrypt-strength:10}") final int strength,
+                                           @Value("${alfons.security.hashing.threads:0}") final int threads,
+                                           @Value("${alfons.security.hashing.queue-size:20}") final int queueSize,
+                                           @NotNull final MeterRegistry meterRegistry) {
+        final var hashingThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new HashingPasswordEncoder(new BCryptPasswordEncoder(strength, new SecureRandom()),
+                hashingThreads, queueSize, meterRegistry);
     }
 
     /**
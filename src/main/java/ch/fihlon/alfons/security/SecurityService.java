@@ -27,7 +27,9 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -39,7 +41,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
-public final class SecurityService implements UserDetailsService {
+public final class SecurityService implements UserDetailsService, UserDetailsPasswordService {
 
     private final DatabaseService databaseService;
     private final PasswordEncoder passwordEncoder;
@@ -62,18 +64,41 @@ public final class SecurityService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(@NotNull final String email) throws UsernameNotFoundException {
         if (loginAttemptService.isBlocked(getClientIP())) {
-            throw new RuntimeException("Too many failed login attempts, IP address blocked for 24 hours!");
+            throw new RuntimeException("Too many failed login attempts, IP address blocked for %d hours!"
+                    .formatted(Math.max(1, loginAttemptService.getWindow().toHours())));
         }
 
+        // read the version before the employee, so an invalidation in between outdates the principal
+        final var version = authenticatedEmployee.version();
         final var optionalEmployee = databaseService.getEmployeeByEmail(email);
         if (optionalEmployee.isEmpty()) {
             throw new UsernameNotFoundException("No employee present with email: " + email);
         } else {
             final var employee = optionalEmployee.get();
-            return new org.springframework.security.core.userdetails.User(employee.getEmail(), employee.getPasswordHash(), getAuthorities(employee));
+            return new EmployeeUserDetails(employee, version, getAuthorities(employee));
         }
     }
 
+    /**
+     * Store the password hash which was upgraded to the configured strength after a successful login.
+     *
+     * @param user the authenticated user
+     * @param newPassword the upgraded password hash
+     * @return the user with the upgraded password hash
+     */
+    @Override
+    public UserDetails updatePassword(@NotNull final UserDetails user, @NotNull final String newPassword) {
+        final var optionalEmployee = databaseService.getEmployeeByEmail(user.getUsername());
+        if (optionalEmployee.isEmpty()) {
+            return User.withUserDetails(user).password(newPassword).build();
+        }
+        final var employee = optionalEmployee.get();
+        employee.setPasswordHash(newPassword);
+        employee.store();
+        authenticatedEmployee.invalidate();
+        return new EmployeeUserDetails(employee, authenticatedEmployee.version(), getAuthorities(employee));
+    }
+
     private static List<GrantedAuthority> getAuthorities(@NotNull final Employee employee) {
         return employee.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getRoleName()))
@@ -90,6 +115,7 @@ public final class SecurityService implements UserDetailsService {
             record.setPasswordHash(passwordHash);
             record.setPasswordChange(true);
             record.store();
+            authenticatedEmployee.invalidate();
 
             databaseService.sendMail(MailTemplateId.SECURITY_RESET_PASSWORD, Map.of("password", password), email);
         }
@@ -97,13 +123,16 @@ public final class SecurityService implements UserDetailsService {
 
     public void changePassword(@NotNull final String oldPassword,
                                @NotNull final String newPassword) {
+        // the cached employee carries no password hash, read the current one from the database
         final var member = authenticatedEmployee.get()
+                .flatMap(employee -> databaseService.getEmployeeByEmail(employee.email()))
                 .orElseThrow(() -> new InsufficientAuthenticationException("Password change denied!"));
         if (passwordEncoder.matches(oldPassword, member.getPasswordHash())) {
             final var newPasswordHash = passwordEncoder.encode(newPassword);
             member.setPasswordHash(newPasswordHash);
             member.setPasswordChange(false);
             member.store();
+            authenticatedEmployee.invalidate();
         } else {
             throw new BadCredentialsException("Password change denied!");
         }
@@ -0,0 +1,76 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * Keeps the time zone of the browser in the Vaadin session, so dates and times can be shown in the
+ * time zone of the user. Until the browser reported its time zone, the time zone of the server is used.
+ */
+public final class ClientTimeZone {
+
+    private static final String SESSION_ATTRIBUTE = ClientTimeZone.class.getName();
+
+    /**
+     * Ask the browser of the UI for its time zone, unless the session already knows it.
+     *
+     * @param ui the UI of the browser
+     */
+    public static void detect(@NotNull final UI ui) {
+        final var session = ui.getSession();
+        if (session.getAttribute(SESSION_ATTRIBUTE) == null) {
+            ui.getPage().retrieveExtendedClientDetails(details ->
+                    session.setAttribute(SESSION_ATTRIBUTE, toZoneId(details.getTimeZoneId())));
+        }
+    }
+
+    private static @NotNull ZoneId toZoneId(@Nullable final String timeZoneId) {
+        if (timeZoneId != null) {
+            try {
+                return ZoneId.of(timeZoneId);
+            } catch (final DateTimeException e) {
+                // unknown to the JVM, fall back to the time zone of the server
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+
+    /**
+     * Get the time zone of the browser of the current session.
+     *
+     * @return the time zone of the browser or of the server, if unknown
+     */
+    public static @NotNull ZoneId get() {
+        final var session = VaadinSession.getCurrent();
+        final var zone = session != null ? session.getAttribute(SESSION_ATTRIBUTE) : null;
+        return zone instanceof ZoneId zoneId ? zoneId : ZoneId.systemDefault();
+    }
+
+    private ClientTimeZone() {
+        throw new IllegalStateException("Utility class");
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import ch.fihlon.alfons.data.entity.ExportColumn;
+import com.opencsv.CSVWriter;
+import com.vaadin.flow.function.SerializableSupplier;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serial;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static ch.fihlon.alfons.util.FormatterUtil.formatDate;
+import static ch.fihlon.alfons.util.FormatterUtil.formatDateTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link StreamResource} which writes CSV data row by row directly into the response. The rows
+ * are requested when the download starts and the stream is closed afterwards, so a lazy database
+ * cursor can be used without keeping the whole export in memory. Date times are written in the
+ * locale and time zone of the user, the same way as in the grids.
+ */
+public final class CsvStreamResource extends StreamResource {
+
+    @Serial
+    private static final long serialVersionUID = -2931474387563405338L;
+
+    public <T> CsvStreamResource(@NotNull final String fileName,
+                                 @NotNull final List<ExportColumn<T>> columns,
+                                 @NotNull final SerializableSupplier<Stream<T>> rows,
+                                 @NotNull final Locale locale,
+                                 @NotNull final ZoneId zone) {
+        super(fileName, (StreamResourceWriter) (outputStream, session) -> write(outputStream, ExportColumn.header(columns),
+                () -> rows.get().map(row -> formatRow(ExportColumn.values(columns, row), locale, zone))));
+        setContentType("text/csv");
+    }
+
+    /**
+     * Convert the values of a database row to CSV values. Dates are formatted the same way as in
+     * the grids and {@code null} values are exported as empty strings.
+     *
+     * @param values the values of a database row
+     * @param locale the locale of the user
+     * @param zone the time zone of the user
+     * @return the CSV values
+     */
+    public static String[] formatRow(@NotNull final Object[] values,
+                                     @NotNull final Locale locale, @NotNull final ZoneId zone) {
+        final var row = new String[values.length];
+        for (var i = 0; i < values.length; i++) {
+            final var value = values[i];
+            if (value instanceof LocalDateTime dateTime) {
+                row[i] = formatDateTime(dateTime, locale, zone);
+            } else if (value instanceof LocalDate date) {
+                row[i] = formatDate(date);
+            } else {
+                row[i] = value == null ? "" : value.toString();
+            }
+        }
+        return row;
+    }
+
+    static void write(@NotNull final OutputStream outputStream,
+                      @NotNull final String[] header,
+                      @NotNull final SerializableSupplier<Stream<String[]>> rows) throws IOException {
+        final var csvWriter = new CSVWriter(new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8)));
+        csvWriter.writeNext(header);
+        try (var stream = rows.get()) {
+            stream.forEach(csvWriter::writeNext);
+        }
+        csvWriter.flush();
+    }
+
+}
@@ -20,18 +20,113 @@ package ch.fihlon.alfons.ui.component;
 
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
+import com.vaadin.flow.function.SerializableConsumer;
+import com.vaadin.flow.shared.Registration;
+import io.micrometer.core.instrument.Metrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
 
 public class FilterField extends TextField {
 
+    /**
+     * The default time in milliseconds the user has to stop typing before the filter is applied.
+     */
+    public static final int DEFAULT_DEBOUNCE_TIMEOUT = 300;
+
+    /**
+     * The name of the counter of filter queries which were not executed thanks to debouncing.
+     */
+    public static final String SAVED_QUERIES_METRIC = "alfons.filter.queries.saved";
+
     @Serial
     private static final long serialVersionUID = -6208990001762120998L;
 
+    private final List<SerializableConsumer<String>> filterChangeListeners = new ArrayList<>();
+
+    private String appliedFilter;
+
     public FilterField() {
+        this(DEFAULT_DEBOUNCE_TIMEOUT);
+    }
+
+    public FilterField(final int debounceTimeout) {
         super();
         setPlaceholder("Filter");
         setClearButtonVisible(true);
-        setValueChangeMode(ValueChangeMode.EAGER);
+        setDebounceTimeout(debounceTimeout);
+        appliedFilter = normalize(getValue());
+        addValueChangeListener(event -> {
+            if (!filterChangeListeners.isEmpty()) {
+                applyFilter(event.getValue(), event.isFromClient() ? countKeystrokes(event.getOldValue(), event.getValue()) : 0);
+            }
+        });
+    }
+
+    /**
+     * Set the time the user has to stop typing before the value change is sent to the server.
+     *
+     * @param debounceTimeout the timeout in milliseconds, zero or less to send every keystroke
+     */
+    public final void setDebounceTimeout(final int debounceTimeout) {
+        if (debounceTimeout > 0) {
+            setValueChangeMode(ValueChangeMode.TIMEOUT);
+            setValueChangeTimeout(debounceTimeout);
+        } else {
+            setValueChangeMode(ValueChangeMode.EAGER);
+        }
+    }
+
+    /**
+     * Add a listener which is called when the filter changes. In contrast to a value change listener,
+     * it is only called if the trimmed value differs from the filter applied before, so redundant
+     * queries (e.g. after typing and deleting a character) are dropped. All listeners are called
+     * with the same filter, once per filter change.
+     *
+     * @param listener the listener receiving the trimmed filter value
+     * @return a registration to remove the listener
+     */
+    public Registration addFilterChangeListener(@NotNull final SerializableConsumer<String> listener) {
+        filterChangeListeners.add(listener);
+        return () -> filterChangeListeners.remove(listener);
+    }
+
+    private void applyFilter(@Nullable final String value, final int keystrokes) {
+        final var filter = normalize(value);
+        if (filter.equals(appliedFilter)) {
+            countSavedQueries(keystrokes);
+        } else {
+            countSavedQueries(keystrokes - 1);
+            appliedFilter = filter;
+            List.copyOf(filterChangeListeners).forEach(listener -> listener.accept(filter));
+        }
+    }
+
+    /**
+     * Estimate the number of keystrokes needed to change the old value to the new value. In eager
+     * mode, every keystroke would have triggered a query.
+     */
+    private static int countKeystrokes(@Nullable final String oldValue, @Nullable final String newValue) {
+        final var oldText = oldValue == null ? "" : oldValue;
+        final var newText = newValue == null ? "" : newValue;
+        final var maxPrefix = Math.min(oldText.length(), newText.length());
+        var prefix = 0;
+        while (prefix < maxPrefix && oldText.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        return oldText.length() - prefix + newText.length() - prefix;
+    }
+
+    private static void countSavedQueries(final int savedQueries) {
+        if (savedQueries > 0) {
+            Metrics.counter(SAVED_QUERIES_METRIC).increment(savedQueries);
+        }
+    }
+
+    private static String normalize(@Nullable final String value) {
+        return value == null ? "" : value.trim();
     }
 }
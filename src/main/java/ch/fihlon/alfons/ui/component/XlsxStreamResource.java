@@ -0,0 +1,200 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import ch.fihlon.alfons.data.entity.ExportColumn;
+import com.vaadin.flow.function.SerializableSupplier;
+import com.vaadin.flow.server.StreamResource;
+import com.vaadin.flow.server.StreamResourceWriter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A {@link StreamResource} which writes an Excel file (XLSX) directly into the response. It uses a
+ * streaming workbook which keeps only a small window of rows in memory and flushes older rows to a
+ * compressed temporary file, so large exports can be read from a lazy database cursor without
+ * keeping the whole export in memory. The sheets of a workbook are written one after the other.
+ */
+public final class XlsxStreamResource extends StreamResource {
+
+    /**
+     * The number of rows kept in memory, older rows are flushed to a temporary file.
+     */
+    static final int ROW_WINDOW_SIZE = 100;
+
+    /**
+     * Columns are not auto sized, because this needs font metrics for every cell of every row.
+     */
+    private static final int DEFAULT_COLUMN_WIDTH = 20;
+
+    private static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String DATE_FORMAT = "yyyy-mm-dd";
+    private static final String DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm";
+
+    @Serial
+    private static final long serialVersionUID = 5087218630393593416L;
+
+    /**
+     * Create an Excel export. Date times are converted to the time zone of the user, their format
+     * is chosen by the spreadsheet application.
+     *
+     * @param fileName the name of the downloaded file
+     * @param sheetName the name of the sheet
+     * @param columns the exported columns
+     * @param rows the exported rows
+     * @param zone the time zone of the user
+     * @param <T> the type of the exported rows
+     */
+    public <T> XlsxStreamResource(@NotNull final String fileName,
+                                  @NotNull final String sheetName,
+                                  @NotNull final List<ExportColumn<T>> columns,
+                                  @NotNull final SerializableSupplier<Stream<T>> rows,
+                                  @NotNull final ZoneId zone) {
+        this(fileName, List.of(Sheet.of(sheetName, columns, rows)), zone);
+    }
+
+    /**
+     * Create an Excel export with multiple sheets. Date times are converted to the time zone of the
+     * user, their format is chosen by the spreadsheet application.
+     *
+     * @param fileName the name of the downloaded file
+     * @param sheets the sheets of the workbook, in their order
+     * @param zone the time zone of the user
+     */
+    public XlsxStreamResource(@NotNull final String fileName,
+                              @NotNull final List<Sheet> sheets,
+                              @NotNull final ZoneId zone) {
+        super(fileName, (StreamResourceWriter) (outputStream, session) -> write(outputStream, sheets, zone));
+        setContentType(CONTENT_TYPE);
+    }
+
+    static void write(@NotNull final OutputStream outputStream,
+                      @NotNull final String sheetName,
+                      @NotNull final String[] header,
+                      @NotNull final SerializableSupplier<Stream<Object[]>> rows,
+                      @NotNull final ZoneId zone) throws IOException {
+        write(outputStream, List.of(new Sheet(sheetName, header, rows)), zone);
+    }
+
+    private static void write(@NotNull final OutputStream outputStream,
+                              @NotNull final List<Sheet> sheets,
+                              @NotNull final ZoneId zone) throws IOException {
+        final var workbook = new SXSSFWorkbook(ROW_WINDOW_SIZE);
+        try (workbook) {
+            workbook.setCompressTempFiles(true);
+            final var dateStyle = createCellStyle(workbook, DATE_FORMAT);
+            final var dateTimeStyle = createCellStyle(workbook, DATE_TIME_FORMAT);
+            for (final var sheet : sheets) {
+                writeSheet(workbook, sheet, zone, dateStyle, dateTimeStyle);
+            }
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    private static void writeSheet(@NotNull final SXSSFWorkbook workbook, @NotNull final Sheet sheet, @NotNull final ZoneId zone,
+                                   @NotNull final CellStyle dateStyle, @NotNull final CellStyle dateTimeStyle) {
+        final var workbookSheet = workbook.createSheet(sheet.name());
+        workbookSheet.setDefaultColumnWidth(DEFAULT_COLUMN_WIDTH);
+
+        final var headerRow = workbookSheet.createRow(0);
+        for (var column = 0; column < sheet.header().length; column++) {
+            headerRow.createCell(column).setCellValue(sheet.header()[column]);
+        }
+        workbookSheet.createFreezePane(0, 1);
+
+        try (var stream = sheet.rows().get()) {
+            stream.forEachOrdered(values -> {
+                final var row = workbookSheet.createRow(workbookSheet.getLastRowNum() + 1);
+                for (var column = 0; column < values.length; column++) {
+                    setCellValue(row.createCell(column), values[column], zone, dateStyle, dateTimeStyle);
+                }
+            });
+        }
+    }
+
+    private static CellStyle createCellStyle(@NotNull final SXSSFWorkbook workbook, @NotNull final String format) {
+        final var cellStyle = workbook.createCellStyle();
+        cellStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(format));
+        return cellStyle;
+    }
+
+    private static void setCellValue(@NotNull final Cell cell, @Nullable final Object value, @NotNull final ZoneId zone,
+                                     @NotNull final CellStyle dateStyle, @NotNull final CellStyle dateTimeStyle) {
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            cell.setCellValue(bool);
+        } else if (value instanceof LocalDateTime dateTime) {
+            // stored in the time zone of the server
+            cell.setCellValue(dateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDateTime());
+            cell.setCellStyle(dateTimeStyle);
+        } else if (value instanceof LocalDate date) {
+            cell.setCellValue(date);
+            cell.setCellStyle(dateStyle);
+        } else if (value != null) {
+            cell.setCellValue(value.toString());
+        }
+    }
+
+    /**
+     * A sheet of an Excel export.
+     *
+     * @param name the name of the sheet
+     * @param header the header of the sheet
+     * @param rows the values of the rows, in the order of the header
+     */
+    public record Sheet(@NotNull String name, @NotNull String[] header,
+                        @NotNull SerializableSupplier<Stream<Object[]>> rows) implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -1722614939482064117L;
+
+        /**
+         * Create a sheet from export columns.
+         *
+         * @param name the name of the sheet
+         * @param columns the exported columns
+         * @param rows the exported rows
+         * @param <T> the type of the exported rows
+         * @return the sheet
+         */
+        public static <T> Sheet of(@NotNull final String name,
+                                   @NotNull final List<ExportColumn<T>> columns,
+                                   @NotNull final SerializableSupplier<Stream<T>> rows) {
+            return new Sheet(name, ExportColumn.header(columns), () -> rows.get().map(row -> ExportColumn.values(columns, row)));
+        }
+
+    }
+
+}
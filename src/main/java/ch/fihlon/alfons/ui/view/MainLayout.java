@@ -21,7 +21,9 @@ package ch.fihlon.alfons.ui.view;
 
 import ch.fihlon.alfons.components.appnav.AppNav;
 import ch.fihlon.alfons.data.db.enums.EmployeeTheme;
+import ch.fihlon.alfons.data.service.DatabaseService;
 import ch.fihlon.alfons.security.AuthenticatedEmployee;
+import ch.fihlon.alfons.ui.component.ClientTimeZone;
 import ch.fihlon.alfons.ui.view.about.AboutView;
 import ch.fihlon.alfons.ui.view.conference.ConferencesView;
 import ch.fihlon.alfons.ui.view.request.RequestsView;
@@ -62,11 +64,14 @@ public final class MainLayout extends AppLayout {
     private static final long serialVersionUID = -3101364083072426857L;
 
     private H2 viewTitle;
+    private final DatabaseService databaseService;
     private final AuthenticatedEmployee authenticatedEmployee;
     private final AccessAnnotationChecker accessChecker;
 
-    public MainLayout(@NotNull final AuthenticatedEmployee authenticatedEmployee,
+    public MainLayout(@NotNull final DatabaseService databaseService,
+                      @NotNull final AuthenticatedEmployee authenticatedEmployee,
                       @NotNull final AccessAnnotationChecker accessChecker) {
+        this.databaseService = databaseService;
         this.authenticatedEmployee = authenticatedEmployee;
         this.accessChecker = accessChecker;
 
@@ -74,7 +79,8 @@ public final class MainLayout extends AppLayout {
         addDrawerContent();
         addHeaderContent();
 
-        authenticatedEmployee.get().ifPresent(employee -> UI.getCurrent().getElement().setAttribute("theme", employee.getTheme().getLiteral()));
+        authenticatedEmployee.get().ifPresent(employee -> UI.getCurrent().getElement().setAttribute("theme", employee.theme().getLiteral()));
+        ClientTimeZone.detect(UI.getCurrent());
     }
 
     private void addHeaderContent() {
@@ -108,17 +114,17 @@ public final class MainLayout extends AppLayout {
         darkThemeItem.setCheckable(true);
         lightThemeItem.setCheckable(true);
         authenticatedEmployee.get().ifPresent(employee -> {
-            switch (employee.getTheme()) {
+            switch (employee.theme()) {
                 case dark -> darkThemeItem.setChecked(true);
                 case light -> lightThemeItem.setChecked(true);
-                default -> throw new IllegalStateException("Unexpected value: " + employee.getTheme());
+                default -> throw new IllegalStateException("Unexpected value: " + employee.theme());
             }
         });
 
         darkThemeItem.addClickListener(clickEvent -> {
             authenticatedEmployee.get().ifPresent(employee -> {
-                employee.setTheme(EmployeeTheme.dark);
-                employee.store();
+                databaseService.updateEmployeeTheme(employee.id(), EmployeeTheme.dark);
+                authenticatedEmployee.invalidate();
             });
             UI.getCurrent().getElement().setAttribute("theme", "dark");
             lightThemeItem.setChecked(false);
@@ -126,8 +132,8 @@ public final class MainLayout extends AppLayout {
 
         lightThemeItem.addClickListener(clickEvent -> {
             authenticatedEmployee.get().ifPresent(employee -> {
-                employee.setTheme(EmployeeTheme.light);
-                employee.store();
+                databaseService.updateEmployeeTheme(employee.id(), EmployeeTheme.light);
+                authenticatedEmployee.invalidate();
             });
             UI.getCurrent().getElement().setAttribute("theme", "light");
             darkThemeItem.setChecked(false);
@@ -139,8 +145,8 @@ public final class MainLayout extends AppLayout {
     private Avatar createAvatar() {
         final var employee = authenticatedEmployee.get().orElse(null);
         if (employee != null) {
-            final var avatar = new Avatar(employee.getFullName());
-            avatar.setImage(GravatarUtil.getGravatarAddress(employee.getEmail().toLowerCase(Locale.getDefault())));
+            final var avatar = new Avatar(employee.fullName());
+            avatar.setImage(GravatarUtil.getGravatarAddress(employee.email().toLowerCase(Locale.getDefault())));
             avatar.getStyle().set("cursor", "pointer");
             avatar.setTooltipEnabled(true);
             return avatar;
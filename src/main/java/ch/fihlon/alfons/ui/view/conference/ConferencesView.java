@@ -18,14 +18,19 @@
 
 package ch.fihlon.alfons.ui.view.conference;
 
+import ch.fihlon.alfons.data.entity.BudgetEntry;
 import ch.fihlon.alfons.data.entity.Conference;
+import ch.fihlon.alfons.data.entity.ConferenceExportEntity;
 import ch.fihlon.alfons.data.entity.Role;
 import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.security.AuthenticatedEmployee;
+import ch.fihlon.alfons.ui.component.ClientTimeZone;
+import ch.fihlon.alfons.ui.component.CsvStreamResource;
 import ch.fihlon.alfons.ui.component.EnhancedButton;
 import ch.fihlon.alfons.ui.component.FilterField;
 import ch.fihlon.alfons.ui.component.ResizableView;
+import ch.fihlon.alfons.ui.component.XlsxStreamResource;
 import ch.fihlon.alfons.ui.view.MainLayout;
-import com.opencsv.CSVWriter;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.dependency.CssImport;
@@ -35,7 +40,7 @@ import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.BeforeEvent;
@@ -50,9 +55,7 @@ import jakarta.annotation.security.RolesAllowed;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serial;
-import java.io.StringWriter;
 import java.net.URLEncoder;
 import java.time.LocalDate;
 import java.util.List;
@@ -69,33 +72,53 @@ public final class ConferencesView extends ResizableView implements HasUrlParame
 
     @Serial
     private static final long serialVersionUID = -5938974936125304046L;
+
     private final DatabaseService databaseService;
-    private final TextField filterField;
+    private final FilterField filterField;
     private final Grid<Conference> grid;
+    private final CallbackDataProvider<Conference, Void> dataProvider;
+    private String filter;
 
-    public ConferencesView(@NotNull final DatabaseService databaseService) {
+    public ConferencesView(@NotNull final DatabaseService databaseService,
+                           @NotNull final AuthenticatedEmployee authenticatedEmployee) {
         this.databaseService = databaseService;
 
         addClassNames("conferences-view", "flex", "flex-col", "h-full");
 
         grid = new Grid<>();
         configureGrid();
+        // one data provider for the lifetime of the view, it identifies the conferences by their IDs
+        dataProvider = new CallbackDataProvider<>(
+                query -> databaseService.findConferences(query.getOffset(), query.getLimit(), filter),
+                query -> databaseService.countConferences(filter),
+                Conference::id);
+        grid.setItems(dataProvider);
         filterField = new FilterField();
-        filterField.addValueChangeListener(event -> reloadConferences());
+        filterField.addFilterChangeListener(filter -> reloadConferences());
         filterField.setTitle("Filter conferences by name");
 
         final var newConferenceButton = new EnhancedButton(new Icon(VaadinIcon.FILE_ADD), clickEvent -> showConferenceDialog(null));
         newConferenceButton.setTitle("Add a new conference");
 
-        final var refreshConferencesButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> reloadConferences());
+        final var refreshConferencesButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> refreshConferences());
         refreshConferencesButton.setTitle("Refresh the list of conferences");
 
         final var downloadConferencesButton = new EnhancedButton(new Icon(VaadinIcon.DOWNLOAD), clickEvent -> downloadConferences());
         downloadConferencesButton.setTitle("Download the list of conferences");
 
-        final var optionBar = new HorizontalLayout(filterField, newConferenceButton, refreshConferencesButton, downloadConferencesButton);
+        final var downloadConferencesExcelButton = new EnhancedButton(new Icon(VaadinIcon.FILE_TABLE), clickEvent -> downloadConferencesAsExcel());
+        downloadConferencesExcelButton.setTitle("Download the list of conferences as Excel file");
+
+        final var optionBar = new HorizontalLayout(filterField, newConferenceButton, refreshConferencesButton, downloadConferencesButton,
+                downloadConferencesExcelButton);
         optionBar.setPadding(true);
 
+        if (authenticatedEmployee.get().orElseThrow().admin()) {
+            final var downloadBudgetExcelButton = new EnhancedButton(new Icon(VaadinIcon.PIGGY_BANK), clickEvent -> downloadBudgetAsExcel());
+            downloadBudgetExcelButton.setTitle("Download the budget of all years as Excel file");
+            optionBar.add(downloadBudgetExcelButton);
+        }
+
         add(optionBar, grid);
         reloadConferences();
         filterField.focus();
@@ -170,7 +193,13 @@ public final class ConferencesView extends ResizableView implements HasUrlParame
         final var conferenceRecord = conference == null || conference.id() == null ? databaseService.newConferenceRecord()
                 : databaseService.getConferenceRecord(conference.id()).orElse(databaseService.newConferenceRecord());
         final var dialog = new ConferenceDialog(conferenceRecord.getId() != null ? "Edit Conference" : "New Conference");
-        dialog.open(conferenceRecord, this::reloadConferences);
+        dialog.open(conferenceRecord, () -> {
+            if (conference != null && conference.id() != null) {
+                databaseService.findConference(conference.id()).ifPresentOrElse(dataProvider::refreshItem, this::refreshConferences);
+            } else {
+                refreshConferences();
+            }
+        });
     }
 
     private void deleteConference(final Conference conference) {
@@ -178,7 +207,7 @@ public final class ConferencesView extends ResizableView implements HasUrlParame
                 String.format("Are you sure you want to permanently delete the conference \"%s\"?", conference.name()),
                 "Delete", dialogEvent -> {
             databaseService.deleteConference(conference.id());
-            reloadConferences();
+            refreshConferences();
             dialogEvent.getSource().close();
         },
                 "Cancel", dialogEvent -> dialogEvent.getSource().close()
@@ -186,26 +215,36 @@ public final class ConferencesView extends ResizableView implements HasUrlParame
     }
 
     private void reloadConferences() {
-        grid.setItems(query -> databaseService.findConferences(query.getOffset(), query.getLimit(), filterField.getValue()));
+        filter = filterField.getValue();
+        dataProvider.refreshAll();
+    }
+
+    private void refreshConferences() {
+        databaseService.invalidateCounts();
+        reloadConferences();
     }
 
     private void downloadConferences() {
-        final var resource = new StreamResource("conferences.csv", () -> {
-            final var stringWriter = new StringWriter();
-            final var csvWriter = new CSVWriter(stringWriter);
-            csvWriter.writeNext(new String[] {
-                    "ID", "Name", "Website", "Begin Date", "End Date"
-            });
-            grid.getGenericDataView()
-                    .getItems().map(conference -> new String[] {
-                    conference.id().toString(),
-                    conference.name(),
-                    conference.website(),
-                    formatDate(conference.beginDate()),
-                    formatDate(conference.endDate())
-            }).forEach(csvWriter::writeNext);
-            return new ByteArrayInputStream(stringWriter.toString().getBytes(UTF_8));
-        });
+        final var filter = filterField.getValue();
+        startDownload(new CsvStreamResource("conferences.csv", ConferenceExportEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportConferences(filter), getLocale(), ClientTimeZone.get()));
+    }
+
+    private void downloadConferencesAsExcel() {
+        final var filter = filterField.getValue();
+        startDownload(new XlsxStreamResource("conferences.xlsx", "Conferences", ConferenceExportEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportConferences(filter), ClientTimeZone.get()));
+    }
+
+    private void downloadBudgetAsExcel() {
+        startDownload(new XlsxStreamResource("budget.xlsx", List.of(
+                XlsxStreamResource.Sheet.of("Years", BudgetEntry.YEAR_EXPORT_COLUMNS, () -> databaseService.getBudgetPerYear().stream()),
+                XlsxStreamResource.Sheet.of("Employees", BudgetEntry.EXPORT_COLUMNS, () -> databaseService.getBudgetPerEmployee().stream()),
+                XlsxStreamResource.Sheet.of("Conferences", BudgetEntry.EXPORT_COLUMNS, () -> databaseService.getBudgetPerConference().stream())),
+                ClientTimeZone.get()));
+    }
+
+    private void startDownload(@NotNull final StreamResource resource) {
         final StreamRegistration registration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
         UI.getCurrent().getPage().setLocation(registration.getResourceUri());
     }
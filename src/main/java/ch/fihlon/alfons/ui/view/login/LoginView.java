@@ -19,6 +19,7 @@
 package ch.fihlon.alfons.ui.view.login;
 
 import ch.fihlon.alfons.security.LoginAttemptService;
+import ch.fihlon.alfons.security.PasswordHashingRejectedException;
 import ch.fihlon.alfons.security.SecurityService;
 import ch.fihlon.alfons.ui.view.about.AboutView;
 import ch.fihlon.alfons.security.AuthenticatedEmployee;
@@ -31,8 +32,11 @@ import com.vaadin.flow.router.BeforeEnterEvent;
 import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.security.web.WebAttributes;
 
 import java.io.Serial;
 
@@ -66,9 +70,14 @@ public final class LoginView extends LoginOverlay implements BeforeEnterObserver
         i18n.getForm().setPassword("Password");
         i18n.getForm().setForgotPassword("I forgot my password");
 
-        if (loginAttemptService.isBlocked(securityService.getClientIP())) {
-            i18n.getErrorMessage().setTitle("IP address blocked for 24 hours");
-            i18n.getErrorMessage().setMessage("Too many failed login attempts from your IP address. Try again in 24 hours or later.");
+        if (getLastAuthenticationException() instanceof PasswordHashingRejectedException rejectedException) {
+            i18n.getErrorMessage().setTitle("Server busy");
+            i18n.getErrorMessage().setMessage(rejectedException.getMessage());
+        } else if (loginAttemptService.isBlocked(securityService.getClientIP())) {
+            final var hours = Math.max(1, loginAttemptService.getWindow().toHours());
+            i18n.getErrorMessage().setTitle("IP address blocked for %d hours".formatted(hours));
+            i18n.getErrorMessage().setMessage(
+                    "Too many failed login attempts from your IP address. Try again in %d hours or later.".formatted(hours));
         } else {
             i18n.getErrorMessage().setTitle("Incorrect email or password");
             i18n.getErrorMessage().setMessage("Check that you have entered the correct email and password and try again.");
@@ -85,10 +94,14 @@ public final class LoginView extends LoginOverlay implements BeforeEnterObserver
                                 UI.getCurrent().getPage().executeJs(
                                         "var field = document.getElementById('vaadinLoginUsername'); if (field !== null) { field.focus(); }");
                             } else {
-                                securityService.resetPassword(email);
-                                Notification.show("Please check your email account for further instructions.");
-                                UI.getCurrent().getPage().executeJs(
-                                        "var field = document.getElementById('vaadinLoginPassword'); if (field !== null) { field.focus(); }");
+                                try {
+                                    securityService.resetPassword(email);
+                                    Notification.show("Please check your email account for further instructions.");
+                                    UI.getCurrent().getPage().executeJs(
+                                            "var field = document.getElementById('vaadinLoginPassword'); if (field !== null) { field.focus(); }");
+                                } catch (final PasswordHashingRejectedException e) {
+                                    Notification.show(e.getMessage());
+                                }
                             }
                         }
                 ));
@@ -97,6 +110,15 @@ public final class LoginView extends LoginOverlay implements BeforeEnterObserver
                 "var field = document.getElementById('vaadinLoginUsername'); if (field !== null) { field.focus(); }");
     }
 
+    /**
+     * Get the reason of the last failed login, which Spring Security stores in the HTTP session.
+     */
+    private static @Nullable Object getLastAuthenticationException() {
+        final var request = VaadinRequest.getCurrent();
+        final var session = request != null ? request.getWrappedSession(false) : null;
+        return session != null ? session.getAttribute(WebAttributes.AUTHENTICATION_EXCEPTION) : null;
+    }
+
     @Override
     public void beforeEnter(@NotNull final BeforeEnterEvent event) {
         if (authenticatedEmployee.get().isPresent()) {
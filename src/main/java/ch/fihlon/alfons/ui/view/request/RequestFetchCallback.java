@@ -0,0 +1,76 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.view.request;
+
+import ch.fihlon.alfons.data.entity.RequestListEntity;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.data.provider.Query;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serial;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Fetches the requests for the grid using keyset (seek) pagination. The last request of every page
+ * fetched is remembered by the offset of the page that follows it. When the grid asks for that page,
+ * the query seeks directly after the remembered request instead of skipping all earlier rows.
+ * Offsets without a remembered key (e.g. after dragging the scrollbar) fall back to offset paging
+ * once, the following pages are sought from there again. The remembered keys are dropped whenever
+ * the filter is set, because the grid then fetches the requests from the beginning again.
+ */
+final class RequestFetchCallback implements CallbackDataProvider.FetchCallback<RequestListEntity, Void> {
+
+    @Serial
+    private static final long serialVersionUID = -6243546218539047812L;
+
+    private final DatabaseService databaseService;
+    private final Map<Integer, RequestListEntity> lastKeys = new HashMap<>();
+    private String filter;
+
+    RequestFetchCallback(@NotNull final DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    @Nullable String getFilter() {
+        return filter;
+    }
+
+    void setFilter(@Nullable final String filter) {
+        this.filter = filter;
+        lastKeys.clear();
+    }
+
+    @Override
+    public Stream<RequestListEntity> fetch(@NotNull final Query<RequestListEntity, Void> query) {
+        final var offset = query.getOffset();
+        final var limit = query.getLimit();
+        final var page = offset == 0 || lastKeys.containsKey(offset)
+                ? databaseService.findRequest(lastKeys.get(offset), limit, filter).toList()
+                : databaseService.findRequest(offset, limit, filter).toList();
+        if (!page.isEmpty()) {
+            lastKeys.put(offset + page.size(), page.get(page.size() - 1));
+        }
+        return page.stream();
+    }
+
+}
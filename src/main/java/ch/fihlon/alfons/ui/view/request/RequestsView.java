@@ -19,26 +19,36 @@
 package ch.fihlon.alfons.ui.view.request;
 
 import ch.fihlon.alfons.data.db.enums.RequestStatus;
-import ch.fihlon.alfons.data.entity.Employee;
+import ch.fihlon.alfons.data.entity.EmployeeSnapshot;
+import ch.fihlon.alfons.data.entity.RequestKey;
 import ch.fihlon.alfons.data.entity.RequestListEntity;
 import ch.fihlon.alfons.data.entity.Role;
+import ch.fihlon.alfons.data.event.RequestEvent;
+import ch.fihlon.alfons.data.event.RequestEventBus;
 import ch.fihlon.alfons.data.service.DatabaseService;
 import ch.fihlon.alfons.security.AuthenticatedEmployee;
+import ch.fihlon.alfons.ui.component.ClientTimeZone;
+import ch.fihlon.alfons.ui.component.CsvStreamResource;
 import ch.fihlon.alfons.ui.component.EnhancedButton;
 import ch.fihlon.alfons.ui.component.FilterField;
 import ch.fihlon.alfons.ui.component.ResizableView;
+import ch.fihlon.alfons.ui.component.XlsxStreamResource;
 import ch.fihlon.alfons.ui.view.MainLayout;
-import com.opencsv.CSVWriter;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.dependency.CssImport;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridMultiSelectionModel;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.BeforeEvent;
@@ -53,9 +63,7 @@ import jakarta.annotation.security.RolesAllowed;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serial;
-import java.io.StringWriter;
 import java.net.URLEncoder;
 import java.util.List;
 
@@ -71,36 +79,74 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
 
     @Serial
     private static final long serialVersionUID = 5432174661071333245L;
+
     private final DatabaseService databaseService;
-    private final Employee user;
-    private final TextField filterField;
+    private final RequestEventBus requestEventBus;
+    private final EmployeeSnapshot user;
+    private final FilterField filterField;
     private final Grid<RequestListEntity> grid;
+    private final RequestFetchCallback requestFetchCallback;
+    private final CallbackDataProvider<RequestListEntity, Void> dataProvider;
+    private final EnhancedButton approveSelectedButton;
+    private final EnhancedButton declineSelectedButton;
+    // the subscription only exists on this node, it is renewed when the view is attached again
+    private transient Runnable requestEventUnsubscribe;
 
     public RequestsView(@NotNull final DatabaseService databaseService,
+                        @NotNull final RequestEventBus requestEventBus,
                         @NotNull final AuthenticatedEmployee authenticatedEmployee) {
         this.databaseService = databaseService;
+        this.requestEventBus = requestEventBus;
         this.user = authenticatedEmployee.get().orElseThrow();
 
         addClassNames("requests-view", "flex", "flex-col", "h-full");
 
         grid = new Grid<>();
         configureGrid();
+        // one data provider for the lifetime of the view, it identifies the requests by their keys
+        requestFetchCallback = new RequestFetchCallback(databaseService);
+        dataProvider = new CallbackDataProvider<>(requestFetchCallback,
+                query -> databaseService.countRequests(requestFetchCallback.getFilter()), RequestKey::of);
+        grid.setItems(dataProvider);
         filterField = new FilterField();
-        filterField.addValueChangeListener(event -> reloadRequests());
+        filterField.addFilterChangeListener(filter -> reloadRequests());
         filterField.setTitle("Filter requests by conference or employee");
 
         final var newRequestButton = new EnhancedButton(new Icon(VaadinIcon.FILE_ADD), clickEvent -> showRequestDialog(null));
         newRequestButton.setTitle("Add a new request");
 
-        final var refreshRequestsButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> reloadRequests());
+        final var refreshRequestsButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> refreshRequests());
         refreshRequestsButton.setTitle("Refresh the list of requests");
 
         final var downloadRequestsButton = new EnhancedButton(new Icon(VaadinIcon.DOWNLOAD), clickEvent -> downloadRequests());
         downloadRequestsButton.setTitle("Download the list of requests");
 
-        final var optionBar = new HorizontalLayout(filterField, newRequestButton, refreshRequestsButton, downloadRequestsButton);
+        final var downloadRequestsExcelButton = new EnhancedButton(new Icon(VaadinIcon.FILE_TABLE), clickEvent -> downloadRequestsAsExcel());
+        downloadRequestsExcelButton.setTitle("Download the list of requests as Excel file");
+
+        final var optionBar = new HorizontalLayout(filterField, newRequestButton, refreshRequestsButton, downloadRequestsButton,
+                downloadRequestsExcelButton);
         optionBar.setPadding(true);
 
+        approveSelectedButton = new EnhancedButton(new Icon(VaadinIcon.CHECK), clickEvent -> approveSelectedRequests());
+        approveSelectedButton.addThemeVariants(ButtonVariant.LUMO_SUCCESS);
+        approveSelectedButton.setTitle("Approve the selected requests");
+        approveSelectedButton.setId("approve-selected-requests");
+        approveSelectedButton.setVisible(false);
+
+        declineSelectedButton = new EnhancedButton(new Icon(VaadinIcon.BAN), clickEvent -> declineSelectedRequests());
+        declineSelectedButton.addThemeVariants(ButtonVariant.LUMO_ERROR);
+        declineSelectedButton.setTitle("Decline the selected requests");
+        declineSelectedButton.setId("decline-selected-requests");
+        declineSelectedButton.setVisible(false);
+
+        if (user.admin()) {
+            final var selectRequestsButton = new EnhancedButton(new Icon(VaadinIcon.CHECK_SQUARE_O), clickEvent -> toggleSelectionMode());
+            selectRequestsButton.setTitle("Select multiple requests to approve or decline them at once");
+            selectRequestsButton.setId("select-requests");
+            optionBar.add(selectRequestsButton, approveSelectedButton, declineSelectedButton);
+        }
+
         add(optionBar, grid);
         reloadRequests();
         filterField.focus();
@@ -113,11 +159,46 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
         final var location = beforeEvent.getLocation();
         final var queryParameters = location.getQueryParameters();
         final var parameters = queryParameters.getParameters();
-        final var filterDefault = user.getAdmin() ? "" : user.getFullName();
+        final var filterDefault = user.admin() ? "" : user.fullName();
         final var filterValue = parameters.getOrDefault("filter", List.of(filterDefault)).get(0);
         filterField.setValue(filterValue);
     }
 
+    @Override
+    protected void onAttach(@Nullable final AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        final var ui = attachEvent != null ? attachEvent.getUI() : UI.getCurrent();
+        // the events of an interval arrive as one batch, so the changes are pushed once per interval
+        requestEventUnsubscribe = requestEventBus.subscribe(events -> {
+            try {
+                ui.access(() -> applyRequestEvents(events));
+            } catch (final UIDetachedException e) {
+                // the view is being closed, the subscription is removed in onDetach
+            }
+        });
+    }
+
+    @Override
+    protected void onDetach(@Nullable final DetachEvent detachEvent) {
+        if (requestEventUnsubscribe != null) {
+            requestEventUnsubscribe.run();
+            requestEventUnsubscribe = null;
+        }
+        super.onDetach(detachEvent);
+    }
+
+    /**
+     * Apply changes made by other sessions or nodes: changed requests are refreshed in place, added
+     * or deleted requests change the rows, so the whole list is refreshed.
+     */
+    private void applyRequestEvents(@NotNull final List<RequestEvent> events) {
+        if (events.stream().anyMatch(event -> event.type() != RequestEvent.Type.CHANGED)) {
+            refreshRequests();
+        } else {
+            refreshRequestItems(events.stream().map(RequestEvent::key).distinct().toList());
+        }
+    }
+
     private void configureGrid() {
         grid.setSelectionMode(Grid.SelectionMode.NONE);
         grid.addThemeVariants(GridVariant.LUMO_NO_BORDER, GridVariant.LUMO_ROW_STRIPES);
@@ -130,7 +211,8 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
                 .withProperty("conference", RequestListEntity::conferenceName)
                 .withProperty("filterValue", request -> URLEncoder.encode(request.conferenceName(), UTF_8)))
                 .setHeader("Conference").setAutoWidth(true).setFlexGrow(1);
-        grid.addColumn(requestListEntity -> formatDateTime(requestListEntity.requestDate()))
+        // the time zone is reported by the browser after the grid was built, so it is read for every row
+        grid.addColumn(requestListEntity -> formatDateTime(requestListEntity.requestDate(), getLocale(), ClientTimeZone.get()))
                 .setHeader("Request Date")
                 .setAutoWidth(true)
                 .setFlexGrow(0);
@@ -151,8 +233,8 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
             final var deleteButton = new EnhancedButton(new Icon(VaadinIcon.TRASH), clickEvent -> deleteRequest(requestListEntity));
             deleteButton.setTitle("Delete this request");
             deleteButton.setEnabled(requestListEntity.status().equals(RequestStatus.submitted)
-                    && (user.getId().equals(requestListEntity.employeeId()) || user.getAdmin()));
-            return user.getAdmin() && requestListEntity.status().equals(RequestStatus.submitted)
+                    && (requestListEntity.employeeId() == user.id() || user.admin()));
+            return user.admin() && requestListEntity.status().equals(RequestStatus.submitted)
                     ? new HorizontalLayout(editButton, deleteButton, approveButton, declineButton)
                     : new HorizontalLayout(editButton, deleteButton);
         }))
@@ -165,12 +247,21 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
     }
 
     private void showRequestDialog(@Nullable final RequestListEntity requestListEntity) {
-        final var requestRecord = requestListEntity == null ? databaseService.newRequestRecord(user)
+        final var requestRecord = requestListEntity == null ? databaseService.newRequestRecord(user.id())
                 : databaseService.getRequestRecord(requestListEntity.employeeId(), requestListEntity.conferenceId())
-                .orElse(databaseService.newRequestRecord(user));
+                .orElse(databaseService.newRequestRecord(user.id()));
         final var dialog = new RequestDialog(requestRecord.getConferenceId() != null
                 ? "Edit Request" : "New Request", databaseService);
-        dialog.open(requestRecord, this::reloadRequests);
+        dialog.open(requestRecord, () -> {
+            final var savedKey = new RequestKey(requestRecord.getEmployeeId(), requestRecord.getConferenceId());
+            if (requestListEntity != null && RequestKey.of(requestListEntity).equals(savedKey)) {
+                databaseService.requestStored(savedKey, false);
+                refreshRequestItems(List.of(savedKey));
+            } else {
+                databaseService.requestStored(savedKey, true);
+                refreshRequests();
+            }
+        });
     }
 
     private void approveRequest(@NotNull final RequestListEntity requestListEntity) {
@@ -180,7 +271,7 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
                         requestListEntity.conferenceName()),
                 "Approve", dialogEvent -> {
             databaseService.updateRequestStatus(requestListEntity.employeeId(), requestListEntity.conferenceId(), RequestStatus.approved);
-            reloadRequests();
+            refreshRequestItems(List.of(RequestKey.of(requestListEntity)));
             dialogEvent.getSource().close();
         },
                 "Cancel", dialogEvent -> dialogEvent.getSource().close()
@@ -194,13 +285,70 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
                         requestListEntity.conferenceName()),
                 "Decline", dialogEvent -> {
             databaseService.updateRequestStatus(requestListEntity.employeeId(), requestListEntity.conferenceId(), RequestStatus.declined);
-            reloadRequests();
+            refreshRequestItems(List.of(RequestKey.of(requestListEntity)));
             dialogEvent.getSource().close();
         },
                 "Cancel", dialogEvent -> dialogEvent.getSource().close()
         ).open();
     }
 
+    private void toggleSelectionMode() {
+        final var multiSelect = !(grid.getSelectionModel() instanceof GridMultiSelectionModel);
+        grid.setSelectionMode(multiSelect ? Grid.SelectionMode.MULTI : Grid.SelectionMode.NONE);
+        if (multiSelect) {
+            // the listeners belong to the selection model, which is replaced with every mode change
+            grid.addSelectionListener(selectionEvent -> {
+                final var selected = !selectionEvent.getAllSelectedItems().isEmpty();
+                approveSelectedButton.setEnabled(selected);
+                declineSelectedButton.setEnabled(selected);
+            });
+        }
+        approveSelectedButton.setEnabled(false);
+        approveSelectedButton.setVisible(multiSelect);
+        declineSelectedButton.setEnabled(false);
+        declineSelectedButton.setVisible(multiSelect);
+    }
+
+    private void approveSelectedRequests() {
+        updateSelectedRequests("Approve requests", "approve", "Approve", RequestStatus.approved);
+    }
+
+    private void declineSelectedRequests() {
+        updateSelectedRequests("Decline requests", "decline", "Decline", RequestStatus.declined);
+    }
+
+    private void updateSelectedRequests(@NotNull final String header, @NotNull final String action,
+                                        @NotNull final String confirmText, @NotNull final RequestStatus status) {
+        final var keys = grid.getSelectedItems().stream()
+                .filter(requestListEntity -> requestListEntity.status().equals(RequestStatus.submitted))
+                .map(RequestKey::of)
+                .toList();
+        if (keys.isEmpty()) {
+            new ConfirmDialog(header, "None of the selected requests is submitted.",
+                    "OK", dialogEvent -> dialogEvent.getSource().close()).open();
+            return;
+        }
+        new ConfirmDialog(header,
+                String.format("Are you sure you want to %s the %d selected submitted requests?", action, keys.size()),
+                confirmText, dialogEvent -> {
+            final var updated = databaseService.updateRequestStatus(keys, status);
+            refreshRequestItems(keys);
+            grid.deselectAll();
+            dialogEvent.getSource().close();
+            Notification.show(String.format("%d of %d requests %s.", updated, keys.size(), status.getLiteral())
+                    + (updated < keys.size() ? " The other requests were decided in the meantime." : ""));
+        },
+                "Cancel", dialogEvent -> dialogEvent.getSource().close()
+        ).open();
+    }
+
+    /**
+     * Refresh the rows of the given requests only, the data provider identifies them by their keys.
+     */
+    private void refreshRequestItems(@NotNull final List<RequestKey> keys) {
+        databaseService.findRequests(keys).forEach(dataProvider::refreshItem);
+    }
+
     private void deleteRequest(@NotNull final RequestListEntity requestListEntity) {
         new ConfirmDialog("Confirm deletion",
                 String.format("Are you sure you want to permanently delete the request from \"%s %s\" for \"%s\"?",
@@ -208,7 +356,7 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
                         requestListEntity.conferenceName()),
                 "Delete", dialogEvent -> {
             databaseService.deleteRequest(requestListEntity.employeeId(), requestListEntity.conferenceId());
-            reloadRequests();
+            refreshRequests();
             dialogEvent.getSource().close();
         },
                 "Cancel", dialogEvent -> dialogEvent.getSource().close()
@@ -216,36 +364,28 @@ public final class RequestsView extends ResizableView implements HasUrlParameter
     }
 
     private void reloadRequests() {
-        grid.setItems(query -> databaseService.findRequest(query.getOffset(), query.getLimit(), filterField.getValue()));
+        requestFetchCallback.setFilter(filterField.getValue());
+        dataProvider.refreshAll();
+    }
+
+    private void refreshRequests() {
+        databaseService.invalidateCounts();
+        reloadRequests();
     }
 
     private void downloadRequests() {
-        final var resource = new StreamResource("requests.csv", () -> {
-            final var stringWriter = new StringWriter();
-            final var csvWriter = new CSVWriter(stringWriter);
-            csvWriter.writeNext(new String[] {
-                    "Employee ID", "Employee First Name", "Employee Last Name",
-                    "Conference ID", "Conference Name", "Conference Website",
-                    "Request Date", "Request Role", "Request Reason",
-                    "Status", "Status Date", "Status Comment"
-            });
-            grid.getGenericDataView()
-                    .getItems().map(requestListEntity -> new String[] {
-                            requestListEntity.employeeId().toString(),
-                            requestListEntity.employeeFirstName(),
-                            requestListEntity.employeeLastName(),
-                            requestListEntity.conferenceId().toString(),
-                            requestListEntity.conferenceName(),
-                            requestListEntity.conferenceWebsite(),
-                            formatDateTime(requestListEntity.requestDate()),
-                            requestListEntity.requestRole().toString(),
-                            requestListEntity.requestReason(),
-                            requestListEntity.status().toString(),
-                            formatDateTime(requestListEntity.statusDate()),
-                            requestListEntity.statusComment()
-            }).forEach(csvWriter::writeNext);
-            return new ByteArrayInputStream(stringWriter.toString().getBytes(UTF_8));
-        });
+        final var filter = filterField.getValue();
+        startDownload(new CsvStreamResource("requests.csv", RequestListEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportRequests(filter), getLocale(), ClientTimeZone.get()));
+    }
+
+    private void downloadRequestsAsExcel() {
+        final var filter = filterField.getValue();
+        startDownload(new XlsxStreamResource("requests.xlsx", "Requests", RequestListEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportRequests(filter), ClientTimeZone.get()));
+    }
+
+    private void startDownload(@NotNull final StreamResource resource) {
         final StreamRegistration registration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
         UI.getCurrent().getPage().setLocation(registration.getResourceUri());
     }
@@ -19,11 +19,13 @@
 package ch.fihlon.alfons.ui.view.settings;
 
 import ch.fihlon.alfons.data.db.tables.records.ConfigurationRecord;
+import ch.fihlon.alfons.data.entity.ExportColumn;
 import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.component.ClientTimeZone;
+import ch.fihlon.alfons.ui.component.CsvStreamResource;
 import ch.fihlon.alfons.ui.component.EnhancedButton;
 import ch.fihlon.alfons.ui.component.FilterField;
 import ch.fihlon.alfons.ui.component.ResizableView;
-import com.opencsv.CSVWriter;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.dependency.CssImport;
@@ -32,19 +34,15 @@ import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.provider.CallbackDataProvider;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.server.StreamRegistration;
-import com.vaadin.flow.server.StreamResource;
 import com.vaadin.flow.server.VaadinSession;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serial;
-import java.io.StringWriter;
-
-import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.List;
 
 @CssImport(value = "./themes/alfons/views/configuration-setting.css")
 public class ConfigurationSetting extends ResizableView {
@@ -52,10 +50,16 @@ public class ConfigurationSetting extends ResizableView {
     @Serial
     private static final long serialVersionUID = 1746686312530964230L;
 
+    private static final List<ExportColumn<ConfigurationRecord>> EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("Key", ConfigurationRecord::getKey),
+            new ExportColumn<>("Value", ConfigurationRecord::getValue));
+
     private final DatabaseService databaseService;
 
-    private final TextField filterField;
+    private final FilterField filterField;
     private final Grid<ConfigurationRecord> grid;
+    private final CallbackDataProvider<ConfigurationRecord, Void> dataProvider;
+    private String filter;
 
     public ConfigurationSetting(@NotNull final DatabaseService databaseService) {
         this.databaseService = databaseService;
@@ -64,14 +68,20 @@ public class ConfigurationSetting extends ResizableView {
 
         grid = new Grid<>();
         configureGrid();
+        // one data provider for the lifetime of the setting, it identifies the settings by their keys
+        dataProvider = new CallbackDataProvider<>(
+                query -> databaseService.findConfiguration(query.getOffset(), query.getLimit(), filter),
+                query -> databaseService.countConfiguration(filter),
+                ConfigurationRecord::getKey);
+        grid.setItems(dataProvider);
         filterField = new FilterField();
-        filterField.addValueChangeListener(event -> reloadGridItems());
+        filterField.addFilterChangeListener(filter -> reloadGridItems());
         filterField.setTitle("Filter configuration");
 
         final var newButton = new EnhancedButton(new Icon(VaadinIcon.FILE_ADD), clickEvent -> showEditDialog(null));
         newButton.setTitle("Add a new configuration setting");
 
-        final var refreshButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> reloadGridItems());
+        final var refreshButton = new EnhancedButton(new Icon(VaadinIcon.REFRESH), clickEvent -> refreshGridItems());
         refreshButton.setTitle("Refresh the list of configuration settings");
 
         final var downloadButton = new EnhancedButton(new Icon(VaadinIcon.DOWNLOAD), clickEvent -> downloadConfigurations());
@@ -112,7 +122,12 @@ public class ConfigurationSetting extends ResizableView {
     private void showEditDialog(@Nullable final ConfigurationRecord configurationRecord) {
         final var dialog = new ConfigurationDialog(configurationRecord != null ? "Edit Configuration Setting" : "New ConfigurationSetting",
                 databaseService);
-        dialog.open(configurationRecord != null ? configurationRecord : databaseService.newConfiguration(), this::reloadGridItems);
+        if (configurationRecord != null) {
+            // the dialog changes the record of the grid, the key can not be changed
+            dialog.open(configurationRecord, () -> dataProvider.refreshItem(configurationRecord));
+        } else {
+            dialog.open(databaseService.newConfiguration(), this::refreshGridItems);
+        }
     }
 
     private void deleteConfiguration(@NotNull final ConfigurationRecord configurationRecord) {
@@ -121,7 +136,7 @@ public class ConfigurationSetting extends ResizableView {
                 "Delete", dialogEvent -> {
             configurationRecord.delete();
             databaseService.reloadConfiguration();
-            reloadGridItems();
+            refreshGridItems();
             dialogEvent.getSource().close();
         },
                 "Cancel", dialogEvent -> dialogEvent.getSource().close()
@@ -129,24 +144,20 @@ public class ConfigurationSetting extends ResizableView {
     }
 
     private void reloadGridItems() {
-        grid.setItems(query -> databaseService.findConfiguration(query.getOffset(), query.getLimit(), filterField.getValue()));
+        filter = filterField.getValue();
+        dataProvider.refreshAll();
         grid.recalculateColumnWidths();
     }
 
+    private void refreshGridItems() {
+        databaseService.invalidateCounts();
+        reloadGridItems();
+    }
+
     private void downloadConfigurations() {
-        final var resource = new StreamResource("configurations.csv", () -> {
-            final var stringWriter = new StringWriter();
-            final var csvWriter = new CSVWriter(stringWriter);
-            csvWriter.writeNext(new String[] {
-                    "Key", "Value"
-            });
-            grid.getGenericDataView()
-                    .getItems().map(configurationRecord -> new String[] {
-                            configurationRecord.getKey(),
-                            configurationRecord.getValue()
-                    }).forEach(csvWriter::writeNext);
-            return new ByteArrayInputStream(stringWriter.toString().getBytes(UTF_8));
-        });
+        final var filter = filterField.getValue();
+        final var resource = new CsvStreamResource("configurations.csv", EXPORT_COLUMNS,
+                () -> databaseService.streamConfiguration(filter), getLocale(), ClientTimeZone.get());
         final StreamRegistration registration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
         UI.getCurrent().getPage().setLocation(registration.getResourceUri());
     }
@@ -22,6 +22,7 @@ import ch.fihlon.alfons.Callback;
 import ch.fihlon.alfons.data.db.tables.records.MailTemplateRecord;
 import ch.fihlon.alfons.ui.component.CustomLabel;
 import ch.fihlon.alfons.data.entity.MailTemplateId;
+import ch.fihlon.alfons.data.service.DatabaseService;
 import ch.fihlon.alfons.ui.component.EditDialog;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.richtexteditor.RichTextEditor;
@@ -45,12 +46,15 @@ public final class MailTemplateDialog extends EditDialog<MailTemplateRecord> {
     private static final long serialVersionUID = 5401865514802957026L;
 
     private final List<MailTemplateId> mailTemplateIds;
+    private final DatabaseService databaseService;
     private Callback afterOpen;
 
     public MailTemplateDialog(@NotNull final String title,
-                              @NotNull final List<MailTemplateId> mailTemplateIds) {
+                              @NotNull final List<MailTemplateId> mailTemplateIds,
+                              @NotNull final DatabaseService databaseService) {
         super(title);
         this.mailTemplateIds = List.copyOf(mailTemplateIds);
+        this.databaseService = databaseService;
     }
 
     @Override
@@ -105,7 +109,12 @@ public final class MailTemplateDialog extends EditDialog<MailTemplateRecord> {
                         afterOpen.execute();
                     }
                 },
-                afterSave
+                () -> {
+                    databaseService.invalidateMailTemplates();
+                    if (afterSave != null) {
+                        afterSave.execute();
+                    }
+                }
         );
     }
 
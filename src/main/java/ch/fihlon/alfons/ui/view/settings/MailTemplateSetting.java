@@ -19,12 +19,14 @@
 package ch.fihlon.alfons.ui.view.settings;
 
 import ch.fihlon.alfons.data.db.tables.records.MailTemplateRecord;
+import ch.fihlon.alfons.data.entity.ExportColumn;
 import ch.fihlon.alfons.data.entity.MailTemplateId;
 import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.component.ClientTimeZone;
+import ch.fihlon.alfons.ui.component.CsvStreamResource;
 import ch.fihlon.alfons.ui.component.EnhancedButton;
 import ch.fihlon.alfons.ui.component.FilterField;
 import ch.fihlon.alfons.ui.component.ResizableView;
-import com.opencsv.CSVWriter;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.dependency.CssImport;
@@ -33,30 +35,30 @@ import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
-import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.renderer.ComponentRenderer;
 import com.vaadin.flow.server.StreamRegistration;
-import com.vaadin.flow.server.StreamResource;
 import com.vaadin.flow.server.VaadinSession;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serial;
-import java.io.StringWriter;
 import java.util.List;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 @CssImport(value = "./themes/alfons/views/mail-template-setting.css")
 public class MailTemplateSetting extends ResizableView {
 
     @Serial
     private static final long serialVersionUID = 792521454924221933L;
 
+    private static final List<ExportColumn<MailTemplateRecord>> EXPORT_COLUMNS = List.of(
+            new ExportColumn<>("ID", MailTemplateRecord::getId),
+            new ExportColumn<>("Subject", MailTemplateRecord::getSubject),
+            new ExportColumn<>("Content text", MailTemplateRecord::getContentText),
+            new ExportColumn<>("Content HTML", MailTemplateRecord::getContentHtml));
+
     private final DatabaseService databaseService;
 
-    private final TextField filterField;
+    private final FilterField filterField;
     private final EnhancedButton newMailTemplatesButton;
     private final Grid<MailTemplateRecord> grid;
 
@@ -68,7 +70,7 @@ public class MailTemplateSetting extends ResizableView {
         grid = new Grid<>();
         configureGrid();
         filterField = new FilterField();
-        filterField.addValueChangeListener(event -> reloadGridItems());
+        filterField.addFilterChangeListener(filter -> reloadGridItems());
         filterField.setTitle("Filter mail templates");
 
         newMailTemplatesButton = new EnhancedButton(new Icon(VaadinIcon.FILE_ADD), clickEvent -> showEditDialog(null));
@@ -116,7 +118,8 @@ public class MailTemplateSetting extends ResizableView {
         final var mailTemplateIds = mailTemplateRecord != null
                 ? List.of(MailTemplateId.valueOf(mailTemplateRecord.getId()))
                 : databaseService.findMissingMailTemplateIds();
-        final var dialog = new MailTemplateDialog(mailTemplateRecord != null ? "Edit Mail Template" : "New Mail Template", mailTemplateIds);
+        final var dialog = new MailTemplateDialog(mailTemplateRecord != null ? "Edit Mail Template" : "New Mail Template",
+                mailTemplateIds, databaseService);
         dialog.open(mailTemplateRecord != null ? mailTemplateRecord : databaseService.newMailTemplate(), this::reloadGridItems);
     }
 
@@ -126,6 +129,7 @@ public class MailTemplateSetting extends ResizableView {
                         mailTemplateRecord.getId()),
                 "Delete", dialogEvent -> {
             mailTemplateRecord.delete();
+            databaseService.invalidateMailTemplates();
             reloadGridItems();
             dialogEvent.getSource().close();
         },
@@ -134,27 +138,16 @@ public class MailTemplateSetting extends ResizableView {
     }
 
     private void reloadGridItems() {
-        grid.setItems(query -> databaseService.findMailTemplate(query.getOffset(), query.getLimit(), filterField.getValue()));
+        final var filter = filterField.getValue();
+        grid.setItems(query -> databaseService.findMailTemplate(query.getOffset(), query.getLimit(), filter));
         grid.recalculateColumnWidths();
         newMailTemplatesButton.setEnabled(!databaseService.findMissingMailTemplateIds().isEmpty());
     }
 
     private void downloadMailTemplates() {
-        final var resource = new StreamResource("mail-templates.csv", () -> {
-            final var stringWriter = new StringWriter();
-            final var csvWriter = new CSVWriter(stringWriter);
-            csvWriter.writeNext(new String[] {
-                    "ID", "Subject", "Content text", "Content HTML"
-            });
-            grid.getGenericDataView()
-                    .getItems().map(mailTemplateRecord -> new String[] {
-                            mailTemplateRecord.getId(),
-                            mailTemplateRecord.getSubject(),
-                            mailTemplateRecord.getContentText(),
-                            mailTemplateRecord.getContentHtml()
-                    }).forEach(csvWriter::writeNext);
-            return new ByteArrayInputStream(stringWriter.toString().getBytes(UTF_8));
-        });
+        final var filter = filterField.getValue();
+        final var resource = new CsvStreamResource("mail-templates.csv", EXPORT_COLUMNS,
+                () -> databaseService.streamMailTemplates(filter), getLocale(), ClientTimeZone.get());
         final StreamRegistration registration = VaadinSession.getCurrent().getResourceRegistry().registerResource(resource);
         UI.getCurrent().getPage().setLocation(registration.getResourceUri());
     }
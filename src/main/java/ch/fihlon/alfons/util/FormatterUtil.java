@@ -19,13 +19,18 @@
 package ch.fihlon.alfons.util;
 
 import org.apache.commons.text.CaseUtils;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class FormatterUtil {
 
@@ -33,24 +38,40 @@ public final class FormatterUtil {
     public static final String TIME_PATTERN = "HH:mm";
     public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm";
 
-    private static final DecimalFormat LARGE_NUMBERS = createLargeNumberFormatter();
+    // DateTimeFormatter is immutable and thread-safe, so the patterns are parsed only once
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_PATTERN);
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
 
-    private static DecimalFormat createLargeNumberFormatter() {
-        final var formatter = (DecimalFormat) NumberFormat.getInstance();
-        final var symbols = formatter.getDecimalFormatSymbols();
+    // per locale and zone, looked up without allocating a key for every formatted value
+    private static final Map<Locale, Map<ZoneId, DateTimeFormatter>> ZONED_DATE_TIME_FORMATTERS = new ConcurrentHashMap<>();
 
-        symbols.setGroupingSeparator('\'');
-        formatter.setDecimalFormatSymbols(symbols);
+    private static final char GROUPING_SEPARATOR = '\'';
+    private static final char DECIMAL_SEPARATOR = '.';
+    private static final int GROUP_SIZE = 3;
+    private static final int AMOUNT_SCALE = 2;
 
-        return formatter;
-    }
+    // 19 digits, 6 grouping separators and the sign of Long.MIN_VALUE
+    private static final int MAX_LONG_LENGTH = 26;
 
     public static DateTimeFormatter dateFormatter() {
-        return DateTimeFormatter.ofPattern(DATE_PATTERN);
+        return DATE_FORMATTER;
     }
 
     public static DateTimeFormatter dateTimeFormatter() {
-        return DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+        return DATE_TIME_FORMATTER;
+    }
+
+    /**
+     * Get the cached date time formatter for a locale which converts the values to a time zone.
+     *
+     * @param locale the locale of the user
+     * @param zone the time zone of the user
+     * @return a shared, thread-safe formatter
+     */
+    public static DateTimeFormatter dateTimeFormatter(@NotNull final Locale locale, @NotNull final ZoneId zone) {
+        return ZONED_DATE_TIME_FORMATTERS
+                .computeIfAbsent(locale, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(zone, key -> DATE_TIME_FORMATTER.withLocale(locale).withZone(zone));
     }
 
     public static String formatDate(@Nullable final LocalDate date) {
@@ -61,8 +82,73 @@ public final class FormatterUtil {
         return dateTime != null ? dateTime.format(dateTimeFormatter()) : "";
     }
 
+    /**
+     * Format a date time stored in the time zone of the server for a user in another time zone.
+     *
+     * @param dateTime the date time in the time zone of the server
+     * @param locale the locale of the user
+     * @param zone the time zone of the user
+     * @return the formatted date time or an empty string if the date time is <code>null</code>
+     */
+    public static String formatDateTime(@Nullable final LocalDateTime dateTime,
+                                        @NotNull final Locale locale, @NotNull final ZoneId zone) {
+        return dateTime != null
+                ? dateTimeFormatter(locale, zone).format(dateTime.atZone(ZoneId.systemDefault()))
+                : "";
+    }
+
+    /**
+     * Format a number with an apostrophe as grouping separator (Swiss style, e.g. <code>1'234'567</code>).
+     * In contrast to a shared {@link java.text.DecimalFormat} this is thread-safe without locking.
+     *
+     * @param number the number to format
+     * @return the formatted number
+     */
     public static String formatNumber(final long number) {
-        return LARGE_NUMBERS.format(number);
+        final var buffer = new char[MAX_LONG_LENGTH];
+        var position = buffer.length;
+        // negative remainders, so Long.MIN_VALUE does not overflow
+        var remaining = number > 0 ? -number : number;
+        var digits = 0;
+        do {
+            if (digits > 0 && digits % GROUP_SIZE == 0) {
+                buffer[--position] = GROUPING_SEPARATOR;
+            }
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+            digits++;
+        } while (remaining != 0);
+        if (number < 0) {
+            buffer[--position] = '-';
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Format an amount with two decimals and an apostrophe as grouping separator (e.g. <code>1'234.50</code>).
+     * The amount is rounded half up. This is thread-safe without locking.
+     *
+     * @param amount the amount to format
+     * @return the formatted amount or an empty string if the amount is <code>null</code>
+     */
+    public static String formatAmount(@Nullable final BigDecimal amount) {
+        if (amount == null) {
+            return "";
+        }
+        final var plain = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).toPlainString();
+        final var sign = plain.charAt(0) == '-' ? 1 : 0;
+        final var integerDigits = plain.length() - AMOUNT_SCALE - 1 - sign;
+        final var formatted = new StringBuilder(plain.length() + (integerDigits - 1) / GROUP_SIZE);
+        formatted.append(plain, 0, sign);
+        for (var i = 0; i < integerDigits; i++) {
+            if (i > 0 && (integerDigits - i) % GROUP_SIZE == 0) {
+                formatted.append(GROUPING_SEPARATOR);
+            }
+            formatted.append(plain.charAt(sign + i));
+        }
+        return formatted.append(DECIMAL_SEPARATOR)
+                .append(plain, plain.length() - AMOUNT_SCALE, plain.length())
+                .toString();
     }
 
     public static String formatString(@Nullable final String string, final int maxLength) {
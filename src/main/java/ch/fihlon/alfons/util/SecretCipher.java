@@ -0,0 +1,111 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encrypts short secrets with AES-GCM, so they can be stored temporarily, e.g. the password of a
+ * mail waiting in the outbox. Every encryption uses a random IV, which is stored together with the
+ * encrypted text. It is immutable and thread-safe.
+ */
+public final class SecretCipher {
+
+    private static final String ALGORITHM = "AES";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final Set<Integer> KEY_LENGTHS = Set.of(16, 24, 32);
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKey key;
+
+    private SecretCipher(@NotNull final SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Create a cipher with a key, encoded with Base64.
+     *
+     * @param key the AES key with 128, 192 or 256 bits, encoded with Base64
+     * @return the cipher
+     * @throws IllegalArgumentException if the key is not a valid AES key
+     */
+    public static SecretCipher of(@NotNull final String key) {
+        final var bytes = Base64.getDecoder().decode(key.trim());
+        if (!KEY_LENGTHS.contains(bytes.length)) {
+            throw new IllegalArgumentException("The key must have 128, 192 or 256 bits, but has %d bits!"
+                    .formatted(bytes.length * Byte.SIZE));
+        }
+        return new SecretCipher(new SecretKeySpec(bytes, ALGORITHM));
+    }
+
+    /**
+     * Encrypt a secret.
+     *
+     * @param secret the secret
+     * @return the IV and the encrypted secret, encoded with Base64
+     */
+    public String encrypt(@NotNull final String secret) {
+        try {
+            final var iv = new byte[IV_LENGTH];
+            RANDOM.nextBytes(iv);
+            final var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+            final var encrypted = cipher.doFinal(secret.getBytes(UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + encrypted.length)
+                    .put(iv)
+                    .put(encrypted)
+                    .array());
+        } catch (final GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt a secret: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decrypt a secret.
+     *
+     * @param encrypted the IV and the encrypted secret, encoded with Base64
+     * @return the secret
+     * @throws IllegalStateException if the secret was encrypted with another key or was modified
+     */
+    public String decrypt(@NotNull final String encrypted) {
+        try {
+            final var bytes = Base64.getDecoder().decode(encrypted);
+            final var cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, bytes, 0, IV_LENGTH));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), UTF_8);
+        } catch (final GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to decrypt a secret: " + e.getMessage(), e);
+        }
+    }
+
+}
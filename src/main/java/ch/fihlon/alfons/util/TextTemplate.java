@@ -0,0 +1,126 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text with {@code ${name}} placeholders, parsed once into literal and placeholder segments. It
+ * is immutable and can be rendered concurrently. Placeholders without a value are rendered as is.
+ */
+public final class TextTemplate {
+
+    private static final String PLACEHOLDER_START = "${";
+    private static final String PLACEHOLDER_END = "}";
+
+    private final List<Segment> segments;
+    private final int literalLength;
+
+    private TextTemplate(@NotNull final List<Segment> segments) {
+        this.segments = List.copyOf(segments);
+        this.literalLength = segments.stream()
+                .filter(segment -> !segment.placeholder())
+                .mapToInt(segment -> segment.text().length())
+                .sum();
+    }
+
+    /**
+     * Parse a text into a template.
+     *
+     * @param text the text with {@code ${name}} placeholders
+     * @return the parsed template
+     */
+    public static TextTemplate compile(@NotNull final String text) {
+        final var segments = new ArrayList<Segment>();
+        var position = 0;
+        while (position < text.length()) {
+            final var start = text.indexOf(PLACEHOLDER_START, position);
+            final var end = start < 0 ? -1 : text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                break;
+            }
+            if (start > position) {
+                segments.add(new Segment(text.substring(position, start), false));
+            }
+            segments.add(new Segment(text.substring(start + PLACEHOLDER_START.length(), end), true));
+            position = end + PLACEHOLDER_END.length();
+        }
+        if (position < text.length()) {
+            segments.add(new Segment(text.substring(position), false));
+        }
+        return new TextTemplate(segments);
+    }
+
+    /**
+     * Render the template in a single pass.
+     *
+     * @param variables the values of the placeholders
+     * @return the rendered text
+     */
+    public String render(@Nullable final Map<String, String> variables) {
+        final var values = variables != null ? variables : Map.<String, String>of();
+        var length = literalLength;
+        for (final var segment : segments) {
+            if (segment.placeholder()) {
+                final var value = values.get(segment.text());
+                length += value != null ? value.length() : segment.text().length() + PLACEHOLDER_START.length() + PLACEHOLDER_END.length();
+            }
+        }
+
+        final var builder = new StringBuilder(length);
+        for (final var segment : segments) {
+            if (segment.placeholder()) {
+                final var value = values.get(segment.text());
+                if (value != null) {
+                    builder.append(value);
+                } else {
+                    builder.append(PLACEHOLDER_START).append(segment.text()).append(PLACEHOLDER_END);
+                }
+            } else {
+                builder.append(segment.text());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Get the text of the template with its placeholders, as it was compiled.
+     *
+     * @return the text of the template
+     */
+    public String text() {
+        final var builder = new StringBuilder();
+        for (final var segment : segments) {
+            if (segment.placeholder()) {
+                builder.append(PLACEHOLDER_START).append(segment.text()).append(PLACEHOLDER_END);
+            } else {
+                builder.append(segment.text());
+            }
+        }
+        return builder.toString();
+    }
+
+    private record Segment(@NotNull String text, boolean placeholder) { }
+
+}
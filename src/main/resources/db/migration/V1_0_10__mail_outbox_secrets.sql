@@ -0,0 +1,2 @@
+ALTER TABLE `mail_outbox` ADD COLUMN `variables` LONGTEXT NULL;
+ALTER TABLE `mail_outbox` ADD COLUMN `secret_variables` TEXT NULL;
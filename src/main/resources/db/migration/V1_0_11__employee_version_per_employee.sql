@@ -0,0 +1,39 @@
+ALTER TABLE `employee` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE `employee_version` ADD COLUMN `deleted_version` BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX `employee_version_changes` ON `employee` (`version`);
+
+-- [jooq ignore start]
+
+DROP TRIGGER `employee_version_insert`;
+DROP TRIGGER `employee_version_update`;
+DROP TRIGGER `employee_version_delete`;
+
+-- the version of an employee is the version of the employees after its last change
+CREATE TRIGGER `employee_version_insert` BEFORE INSERT ON `employee`
+    FOR EACH ROW
+BEGIN
+    UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+    SET NEW.`version` = (SELECT `version` FROM `employee_version` WHERE `id` = 1);
+END;
+
+-- the password hash is not cached, changing it (e.g. upgrading it on login) does not change the version
+CREATE TRIGGER `employee_version_update` BEFORE UPDATE ON `employee`
+    FOR EACH ROW
+BEGIN
+    IF NOT (OLD.`first_name` <=> NEW.`first_name` AND OLD.`last_name` <=> NEW.`last_name` AND OLD.`email` <=> NEW.`email`
+            AND OLD.`admin` <=> NEW.`admin` AND OLD.`password_change` <=> NEW.`password_change` AND OLD.`theme` <=> NEW.`theme`) THEN
+        UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+        SET NEW.`version` = (SELECT `version` FROM `employee_version` WHERE `id` = 1);
+    END IF;
+END;
+
+-- a deleted employee has no row left to carry its version
+CREATE TRIGGER `employee_version_delete` AFTER DELETE ON `employee`
+    FOR EACH ROW
+BEGIN
+    UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+    UPDATE `employee_version` SET `deleted_version` = `version` WHERE `id` = 1;
+END;
+
+-- [jooq ignore stop]
@@ -0,0 +1,6 @@
+-- [jooq ignore start]
+
+CREATE FULLTEXT INDEX `employee_fulltext` ON `employee` (`first_name`, `last_name`);
+CREATE FULLTEXT INDEX `conference_fulltext` ON `conference` (`name`);
+
+-- [jooq ignore stop]
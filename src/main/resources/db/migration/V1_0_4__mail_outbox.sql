@@ -0,0 +1,17 @@
+CREATE TABLE `mail_outbox` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT,
+
+    `sender` VARCHAR(255) NOT NULL,
+    `recipients` TEXT NOT NULL,
+    `subject` VARCHAR(255) NOT NULL,
+    `content_text` LONGTEXT NOT NULL,
+    `created` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `attempts` INT NOT NULL DEFAULT 0,
+    `next_attempt` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `locked_until` DATETIME NULL,
+    `last_error` TEXT NULL,
+
+    PRIMARY KEY (`id`)
+);
+
+CREATE INDEX `mail_outbox_next_attempt` ON `mail_outbox` (`next_attempt`);
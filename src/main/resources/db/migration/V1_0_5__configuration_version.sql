@@ -0,0 +1,22 @@
+CREATE TABLE `configuration_version` (
+    `id` TINYINT NOT NULL,
+    `version` BIGINT NOT NULL,
+
+    PRIMARY KEY (`id`)
+);
+
+-- [jooq ignore start]
+
+INSERT INTO configuration_version (`id`, `version`)
+VALUES (1, 0);
+
+CREATE TRIGGER `configuration_version_insert` AFTER INSERT ON `configuration`
+    FOR EACH ROW UPDATE `configuration_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+CREATE TRIGGER `configuration_version_update` AFTER UPDATE ON `configuration`
+    FOR EACH ROW UPDATE `configuration_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+CREATE TRIGGER `configuration_version_delete` AFTER DELETE ON `configuration`
+    FOR EACH ROW UPDATE `configuration_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+-- [jooq ignore stop]
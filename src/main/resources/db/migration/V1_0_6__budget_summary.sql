@@ -0,0 +1,127 @@
+CREATE TABLE `budget_summary` (
+    `year` INT NOT NULL,
+    `dimension` ENUM('year', 'employee', 'conference') NOT NULL,
+    `dimension_id` BIGINT NOT NULL,
+    `committed_requests` INT NOT NULL DEFAULT 0,
+    `committed_amount` BIGINT NOT NULL DEFAULT 0,
+    `approved_requests` INT NOT NULL DEFAULT 0,
+    `approved_amount` BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (`year`, `dimension`, `dimension_id`)
+);
+
+-- [jooq ignore start]
+
+-- committed are the submitted and approved requests, the costs of a request are the costs of its conference
+
+INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+SELECT YEAR(c.`begin_date`), 'year', 0,
+       COUNT(*), SUM(c.`ticket` + c.`travel` + c.`accommodation`),
+       SUM(r.`status` = 'approved'), SUM(IF(r.`status` = 'approved', c.`ticket` + c.`travel` + c.`accommodation`, 0))
+FROM `request` r JOIN `conference` c ON c.`id` = r.`conference_id`
+WHERE r.`status` IN ('submitted', 'approved')
+GROUP BY YEAR(c.`begin_date`);
+
+INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+SELECT YEAR(c.`begin_date`), 'employee', r.`employee_id`,
+       COUNT(*), SUM(c.`ticket` + c.`travel` + c.`accommodation`),
+       SUM(r.`status` = 'approved'), SUM(IF(r.`status` = 'approved', c.`ticket` + c.`travel` + c.`accommodation`, 0))
+FROM `request` r JOIN `conference` c ON c.`id` = r.`conference_id`
+WHERE r.`status` IN ('submitted', 'approved')
+GROUP BY YEAR(c.`begin_date`), r.`employee_id`;
+
+INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+SELECT YEAR(c.`begin_date`), 'conference', r.`conference_id`,
+       COUNT(*), SUM(c.`ticket` + c.`travel` + c.`accommodation`),
+       SUM(r.`status` = 'approved'), SUM(IF(r.`status` = 'approved', c.`ticket` + c.`travel` + c.`accommodation`, 0))
+FROM `request` r JOIN `conference` c ON c.`id` = r.`conference_id`
+WHERE r.`status` IN ('submitted', 'approved')
+GROUP BY YEAR(c.`begin_date`), r.`conference_id`;
+
+CREATE PROCEDURE `budget_summary_add`(IN p_year INT, IN p_dimension VARCHAR(10), IN p_dimension_id BIGINT,
+                                      IN p_committed INT, IN p_approved INT, IN p_cost BIGINT)
+BEGIN
+    INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+    VALUES (p_year, p_dimension, p_dimension_id, p_committed, p_committed * p_cost, p_approved, p_approved * p_cost)
+    ON DUPLICATE KEY UPDATE
+        `committed_requests` = `committed_requests` + p_committed,
+        `committed_amount` = `committed_amount` + p_committed * p_cost,
+        `approved_requests` = `approved_requests` + p_approved,
+        `approved_amount` = `approved_amount` + p_approved * p_cost;
+END;
+
+-- adds (p_sign = 1) or removes (p_sign = -1) a request in all dimensions
+CREATE PROCEDURE `budget_summary_request`(IN p_employee_id BIGINT, IN p_conference_id BIGINT,
+                                          IN p_status VARCHAR(20), IN p_sign INT)
+BEGIN
+    DECLARE v_year INT;
+    DECLARE v_cost BIGINT;
+    DECLARE v_committed INT;
+    DECLARE v_approved INT;
+    SET v_committed = IF(p_status IN ('submitted', 'approved'), p_sign, 0);
+    SET v_approved = IF(p_status = 'approved', p_sign, 0);
+    IF v_committed <> 0 THEN
+        SELECT YEAR(`begin_date`), `ticket` + `travel` + `accommodation` INTO v_year, v_cost
+        FROM `conference` WHERE `id` = p_conference_id;
+        CALL budget_summary_add(v_year, 'year', 0, v_committed, v_approved, v_cost);
+        CALL budget_summary_add(v_year, 'employee', p_employee_id, v_committed, v_approved, v_cost);
+        CALL budget_summary_add(v_year, 'conference', p_conference_id, v_committed, v_approved, v_cost);
+    END IF;
+END;
+
+CREATE TRIGGER `budget_summary_request_insert` AFTER INSERT ON `request`
+    FOR EACH ROW CALL budget_summary_request(NEW.`employee_id`, NEW.`conference_id`, NEW.`status`, 1);
+
+CREATE TRIGGER `budget_summary_request_update` AFTER UPDATE ON `request`
+    FOR EACH ROW
+BEGIN
+    IF NOT (OLD.`status` <=> NEW.`status` AND OLD.`employee_id` <=> NEW.`employee_id` AND OLD.`conference_id` <=> NEW.`conference_id`) THEN
+        CALL budget_summary_request(OLD.`employee_id`, OLD.`conference_id`, OLD.`status`, -1);
+        CALL budget_summary_request(NEW.`employee_id`, NEW.`conference_id`, NEW.`status`, 1);
+    END IF;
+END;
+
+CREATE TRIGGER `budget_summary_request_delete` AFTER DELETE ON `request`
+    FOR EACH ROW CALL budget_summary_request(OLD.`employee_id`, OLD.`conference_id`, OLD.`status`, -1);
+
+-- moves the requests of a conference to its new costs and year
+CREATE TRIGGER `budget_summary_conference_update` AFTER UPDATE ON `conference`
+    FOR EACH ROW
+BEGIN
+    DECLARE v_old_cost BIGINT;
+    DECLARE v_new_cost BIGINT;
+    DECLARE v_committed INT;
+    DECLARE v_approved INT;
+    SET v_old_cost = OLD.`ticket` + OLD.`travel` + OLD.`accommodation`;
+    SET v_new_cost = NEW.`ticket` + NEW.`travel` + NEW.`accommodation`;
+    IF v_old_cost <> v_new_cost OR YEAR(OLD.`begin_date`) <> YEAR(NEW.`begin_date`) THEN
+        SELECT COUNT(*), COALESCE(SUM(`status` = 'approved'), 0) INTO v_committed, v_approved
+        FROM `request` WHERE `conference_id` = NEW.`id` AND `status` IN ('submitted', 'approved');
+        IF v_committed > 0 THEN
+            CALL budget_summary_add(YEAR(OLD.`begin_date`), 'year', 0, -v_committed, -v_approved, v_old_cost);
+            CALL budget_summary_add(YEAR(NEW.`begin_date`), 'year', 0, v_committed, v_approved, v_new_cost);
+            CALL budget_summary_add(YEAR(OLD.`begin_date`), 'conference', NEW.`id`, -v_committed, -v_approved, v_old_cost);
+            CALL budget_summary_add(YEAR(NEW.`begin_date`), 'conference', NEW.`id`, v_committed, v_approved, v_new_cost);
+
+            INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+            SELECT YEAR(OLD.`begin_date`), 'employee', `employee_id`, -1, -v_old_cost, -(`status` = 'approved'), -(`status` = 'approved') * v_old_cost
+            FROM `request` WHERE `conference_id` = NEW.`id` AND `status` IN ('submitted', 'approved')
+            ON DUPLICATE KEY UPDATE
+                `committed_requests` = `committed_requests` + VALUES(`committed_requests`),
+                `committed_amount` = `committed_amount` + VALUES(`committed_amount`),
+                `approved_requests` = `approved_requests` + VALUES(`approved_requests`),
+                `approved_amount` = `approved_amount` + VALUES(`approved_amount`);
+
+            INSERT INTO `budget_summary` (`year`, `dimension`, `dimension_id`, `committed_requests`, `committed_amount`, `approved_requests`, `approved_amount`)
+            SELECT YEAR(NEW.`begin_date`), 'employee', `employee_id`, 1, v_new_cost, (`status` = 'approved'), (`status` = 'approved') * v_new_cost
+            FROM `request` WHERE `conference_id` = NEW.`id` AND `status` IN ('submitted', 'approved')
+            ON DUPLICATE KEY UPDATE
+                `committed_requests` = `committed_requests` + VALUES(`committed_requests`),
+                `committed_amount` = `committed_amount` + VALUES(`committed_amount`),
+                `approved_requests` = `approved_requests` + VALUES(`approved_requests`),
+                `approved_amount` = `approved_amount` + VALUES(`approved_amount`);
+        END IF;
+    END IF;
+END;
+
+-- [jooq ignore stop]
@@ -0,0 +1,23 @@
+ALTER TABLE `conference` ADD COLUMN `request_count` INT NOT NULL DEFAULT 0;
+
+-- [jooq ignore start]
+
+UPDATE `conference` c
+SET c.`request_count` = (SELECT COUNT(*) FROM `request` r WHERE r.`conference_id` = c.`id`);
+
+CREATE TRIGGER `conference_request_count_insert` AFTER INSERT ON `request`
+    FOR EACH ROW UPDATE `conference` SET `request_count` = `request_count` + 1 WHERE `id` = NEW.`conference_id`;
+
+CREATE TRIGGER `conference_request_count_update` AFTER UPDATE ON `request`
+    FOR EACH ROW
+BEGIN
+    IF OLD.`conference_id` <> NEW.`conference_id` THEN
+        UPDATE `conference` SET `request_count` = `request_count` - 1 WHERE `id` = OLD.`conference_id`;
+        UPDATE `conference` SET `request_count` = `request_count` + 1 WHERE `id` = NEW.`conference_id`;
+    END IF;
+END;
+
+CREATE TRIGGER `conference_request_count_delete` AFTER DELETE ON `request`
+    FOR EACH ROW UPDATE `conference` SET `request_count` = `request_count` - 1 WHERE `id` = OLD.`conference_id`;
+
+-- [jooq ignore stop]
@@ -0,0 +1,9 @@
+CREATE TABLE `login_attempt` (
+    `ip` VARCHAR(255) NOT NULL,
+    `bucket` BIGINT NOT NULL,
+    `failures` INT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (`ip`, `bucket`)
+);
+
+CREATE INDEX `login_attempt_bucket` ON `login_attempt` (`bucket`);
@@ -0,0 +1,22 @@
+CREATE TABLE `employee_version` (
+    `id` TINYINT NOT NULL,
+    `version` BIGINT NOT NULL,
+
+    PRIMARY KEY (`id`)
+);
+
+-- [jooq ignore start]
+
+INSERT INTO employee_version (`id`, `version`)
+VALUES (1, 0);
+
+CREATE TRIGGER `employee_version_insert` AFTER INSERT ON `employee`
+    FOR EACH ROW UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+CREATE TRIGGER `employee_version_update` AFTER UPDATE ON `employee`
+    FOR EACH ROW UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+CREATE TRIGGER `employee_version_delete` AFTER DELETE ON `employee`
+    FOR EACH ROW UPDATE `employee_version` SET `version` = `version` + 1 WHERE `id` = 1;
+
+-- [jooq ignore stop]
@@ -0,0 +1,89 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.entity;
+
+import ch.fihlon.alfons.data.db.enums.RequestRole;
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
+import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
+
+/**
+ * Measures the mapping of a page of the requests grid to {@link RequestListEntity} records, the
+ * same way {@code fetchInto(RequestListEntity.class)} does after the query was executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestListEntityBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private Result<Record> page;
+
+    @Setup
+    public void setup() {
+        final var dsl = DSL.using(SQLDialect.MARIADB);
+        final Field<?>[] fields = {
+                EMPLOYEE.ID, EMPLOYEE.FIRST_NAME, EMPLOYEE.LAST_NAME,
+                CONFERENCE.ID, CONFERENCE.NAME, CONFERENCE.WEBSITE,
+                REQUEST.REQUEST_DATE, REQUEST.ROLE, REQUEST.REASON,
+                REQUEST.STATUS, REQUEST.STATUS_DATE, REQUEST.STATUS_COMMENT
+        };
+        page = dsl.newResult(fields);
+        final var date = LocalDateTime.of(2024, 10, 7, 9, 30);
+        for (var row = 0; row < PAGE_SIZE; row++) {
+            final var record = dsl.newRecord(fields);
+            record.fromArray((long) row, "Jane", "Doe",
+                    (long) row % 10, "Conference " + row % 10, "https://www.example.com/",
+                    date, RequestRole.attendee, "I would like to learn something new.",
+                    RequestStatus.submitted, date, null);
+            page.add(record);
+        }
+    }
+
+    @Benchmark
+    public List<RequestListEntity> fetchInto() {
+        return page.into(RequestListEntity.class);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.event;
+
+import ch.fihlon.alfons.data.entity.RequestKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestEventBusTest {
+
+    private RequestEventBus requestEventBus;
+
+    @BeforeEach
+    void createBus() {
+        requestEventBus = new RequestEventBus(new LocalRequestEventFanOut(), Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void shutdownBus() {
+        requestEventBus.shutdown();
+    }
+
+    @Test
+    void eventsOfOneIntervalAreDeliveredAsOneBatch() throws InterruptedException {
+        final var batches = new LinkedBlockingQueue<List<RequestEvent>>();
+        requestEventBus.subscribe(batches::add);
+
+        final var added = new RequestEvent(RequestEvent.Type.ADDED, new RequestKey(1, 1));
+        final var changed = new RequestEvent(RequestEvent.Type.CHANGED, new RequestKey(2, 1));
+        requestEventBus.publish(added);
+        requestEventBus.publish(changed);
+
+        final var batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(List.of(added, changed), batch);
+        assertNull(batches.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void everySubscriberReceivesTheEvents() throws InterruptedException {
+        final var first = new LinkedBlockingQueue<List<RequestEvent>>();
+        final var second = new LinkedBlockingQueue<List<RequestEvent>>();
+        requestEventBus.subscribe(first::add);
+        requestEventBus.subscribe(second::add);
+
+        final var deleted = new RequestEvent(RequestEvent.Type.DELETED, new RequestKey(1, 2));
+        requestEventBus.publish(deleted);
+
+        assertEquals(List.of(deleted), first.poll(5, TimeUnit.SECONDS));
+        assertEquals(List.of(deleted), second.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void removedSubscriberReceivesNoEvents() throws InterruptedException {
+        final var batches = new LinkedBlockingQueue<List<RequestEvent>>();
+        requestEventBus.subscribe(batches::add).run();
+
+        requestEventBus.publish(new RequestEvent(RequestEvent.Type.CHANGED, new RequestKey(1, 1)));
+
+        assertNull(batches.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void failingSubscriberDoesNotAffectOthers() throws InterruptedException {
+        final var batches = new LinkedBlockingQueue<List<RequestEvent>>();
+        requestEventBus.subscribe(events -> {
+            throw new IllegalStateException("failing subscriber");
+        });
+        requestEventBus.subscribe(batches::add);
+
+        final var changed = new RequestEvent(RequestEvent.Type.CHANGED, new RequestKey(1, 1));
+        requestEventBus.publish(changed);
+
+        assertEquals(List.of(changed), batches.poll(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
+import ch.fihlon.alfons.data.entity.BudgetEntry;
+import ch.fihlon.alfons.ui.KaribuTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BudgetIT extends KaribuTest {
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void budgetFollowsRequestsAndConferences() {
+        try {
+            // two submitted requests for "Test Conference 1" (2020) with costs of 50 each
+            assertEquals(List.of(new BudgetEntry(2020, 0L, "", 2, 100L, 0, 0L)), databaseService.getBudgetPerYear());
+
+            databaseService.updateRequestStatus(2, 1, RequestStatus.approved);
+            assertEquals(List.of(new BudgetEntry(2020, 0L, "", 2, 100L, 1, 50L)), databaseService.getBudgetPerYear());
+            assertEquals(List.of(new BudgetEntry(2020, 1L, "Test Conference 1", 2, 100L, 1, 50L)),
+                    databaseService.getBudgetPerConference(2020));
+
+            updateConference(100, LocalDate.of(2020, 2, 2));
+            assertEquals(List.of(new BudgetEntry(2020, 0L, "", 2, 300L, 1, 150L)), databaseService.getBudgetPerYear());
+
+            updateConference(100, LocalDate.of(2021, 2, 2));
+            assertEquals(List.of(new BudgetEntry(2021, 0L, "", 2, 300L, 1, 150L)), databaseService.getBudgetPerYear());
+            assertEquals(List.of(
+                    new BudgetEntry(2021, 2L, "Jane Doe", 1, 150L, 1, 150L),
+                    new BudgetEntry(2021, 1L, "John Doe", 1, 150L, 0, 0L)),
+                    databaseService.getBudgetPerEmployee(2021));
+            assertEquals(List.of(), databaseService.getBudgetPerEmployee(2020));
+            assertEquals(databaseService.getBudgetPerEmployee(2021), databaseService.getBudgetPerEmployee());
+            assertEquals(databaseService.getBudgetPerConference(2021), databaseService.getBudgetPerConference());
+
+            databaseService.updateRequestStatus(1, 1, RequestStatus.declined);
+            assertEquals(List.of(new BudgetEntry(2021, 0L, "", 1, 150L, 1, 150L)), databaseService.getBudgetPerYear());
+
+            // the incrementally maintained summary must match a full recalculation
+            final var perYear = databaseService.getBudgetPerYear();
+            final var perEmployee = databaseService.getBudgetPerEmployee(2021);
+            final var perConference = databaseService.getBudgetPerConference(2021);
+            databaseService.rebuildBudget();
+            assertEquals(perYear, databaseService.getBudgetPerYear());
+            assertEquals(perEmployee, databaseService.getBudgetPerEmployee(2021));
+            assertEquals(perConference, databaseService.getBudgetPerConference(2021));
+        } finally {
+            updateConference(0, LocalDate.of(2020, 2, 2));
+            databaseService.updateRequestStatus(1, 1, RequestStatus.submitted);
+            databaseService.updateRequestStatus(2, 1, RequestStatus.submitted);
+        }
+        assertEquals(List.of(new BudgetEntry(2020, 0L, "", 2, 100L, 0, 0L)), databaseService.getBudgetPerYear());
+    }
+
+    private void updateConference(final int ticket, final LocalDate beginDate) {
+        databaseService.dsl().update(CONFERENCE)
+                .set(CONFERENCE.TICKET, ticket)
+                .set(CONFERENCE.BEGIN_DATE, beginDate)
+                .set(CONFERENCE.END_DATE, beginDate)
+                .where(CONFERENCE.ID.eq(1L))
+                .execute();
+    }
+
+}
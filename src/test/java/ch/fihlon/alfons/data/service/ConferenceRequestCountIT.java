@@ -0,0 +1,68 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.ui.KaribuTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConferenceRequestCountIT extends KaribuTest {
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void requestCountFollowsRequests() {
+        assertEquals(2, requestCount(1L));
+        assertEquals(0, requestCount(2L));
+
+        final var request = databaseService.newRequestRecord(null);
+        request.setEmployeeId(1L);
+        request.setConferenceId(2L);
+        request.setReason("Lorem ipsum dolor sit amet, consetetur sadipscing elitr, sed diam.");
+        request.store();
+        assertEquals(1, requestCount(2L));
+
+        databaseService.deleteRequest(1L, 2L);
+        assertEquals(0, requestCount(2L));
+        assertEquals(2, requestCount(1L));
+    }
+
+    @Test
+    void repairCorrectsDriftedRequestCounts() {
+        databaseService.dsl().update(CONFERENCE)
+                .set(CONFERENCE.REQUEST_COUNT, 42)
+                .where(CONFERENCE.ID.eq(2L))
+                .execute();
+        assertEquals(42, requestCount(2L));
+
+        assertEquals(1, databaseService.repairRequestCounts());
+        assertEquals(0, requestCount(2L));
+        assertEquals(2, requestCount(1L));
+        assertEquals(0, databaseService.repairRequestCounts());
+    }
+
+    private int requestCount(final long conferenceId) {
+        return databaseService.getConferenceRecord(conferenceId).orElseThrow().getRequestCount();
+    }
+
+}
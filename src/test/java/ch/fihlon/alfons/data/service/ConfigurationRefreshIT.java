@@ -0,0 +1,55 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.ui.KaribuTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static ch.fihlon.alfons.data.db.tables.Configuration.CONFIGURATION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConfigurationRefreshIT extends KaribuTest {
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void configurationChangedOnOtherNodeIsRefreshed() {
+        final var originalUrl = databaseService.configuration().getWebsiteBaseUrl();
+        try {
+            // simulate a change made by another node, which does not reload the configuration here
+            databaseService.dsl().update(CONFIGURATION)
+                    .set(CONFIGURATION.VALUE, "https://alfons.example.com")
+                    .where(CONFIGURATION.KEY.eq("website.url"))
+                    .execute();
+            assertEquals(originalUrl, databaseService.configuration().getWebsiteBaseUrl());
+
+            databaseService.refreshConfiguration();
+            assertEquals("https://alfons.example.com", databaseService.configuration().getWebsiteBaseUrl());
+        } finally {
+            databaseService.dsl().update(CONFIGURATION)
+                    .set(CONFIGURATION.VALUE, originalUrl)
+                    .where(CONFIGURATION.KEY.eq("website.url"))
+                    .execute();
+            databaseService.reloadConfiguration();
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FulltextSearchTest {
+
+    @Test
+    void emptyFilterIsNotSearchable() {
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery(null));
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery(""));
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery("   "));
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery("+-*"));
+    }
+
+    @Test
+    void everyTermIsRequiredAsPrefix() {
+        assertEquals(Optional.of("+Jane*"), FulltextSearch.toBooleanQuery("Jane"));
+        assertEquals(Optional.of("+Jane* +Doe*"), FulltextSearch.toBooleanQuery(" Jane   Doe "));
+    }
+
+    @Test
+    void operatorsAreRemoved() {
+        assertEquals(Optional.of("+Jane* +Doe*"), FulltextSearch.toBooleanQuery("-Jane \"Doe\"*"));
+        assertEquals(Optional.of("+Java* +Conference*"), FulltextSearch.toBooleanQuery("Java(Conference)"));
+    }
+
+    @Test
+    void shortTermsAndStopwordsAreNotSearchable() {
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery("Test Conference 1"));
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery("Jo"));
+        assertEquals(Optional.empty(), FulltextSearch.toBooleanQuery("Voxxed Days The"));
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MailOutboxDispatcherTest {
+
+    @Test
+    void backoffDoublesWithEveryAttempt() {
+        assertEquals(Duration.ofSeconds(30), MailOutboxDispatcher.backoff(1));
+        assertEquals(Duration.ofMinutes(1), MailOutboxDispatcher.backoff(2));
+        assertEquals(Duration.ofMinutes(2), MailOutboxDispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(32), MailOutboxDispatcher.backoff(7));
+    }
+
+    @Test
+    void backoffIsLimited() {
+        assertEquals(Duration.ofSeconds(30), MailOutboxDispatcher.backoff(0));
+        assertEquals(Duration.ofHours(1), MailOutboxDispatcher.backoff(8));
+        assertEquals(Duration.ofHours(1), MailOutboxDispatcher.backoff(Integer.MAX_VALUE));
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.entity.MailTemplateId;
+import ch.fihlon.alfons.ui.KaribuTest;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static ch.fihlon.alfons.data.db.tables.MailOutbox.MAIL_OUTBOX;
+import static ch.fihlon.alfons.data.db.tables.MailTemplate.MAIL_TEMPLATE;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailOutboxIT extends KaribuTest {
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void mailIsDeliveredFromOutbox() throws Exception {
+        GREEN_MAIL.purgeEmailFromAllMailboxes();
+
+        // the mail is not visible to the dispatcher before the transaction is committed
+        databaseService.dsl().transaction(configuration -> {
+            databaseService.sendMail(MailTemplateId.SECURITY_RESET_PASSWORD, Map.of("password", "0neT1meP4ssw0rd"), "john@localhost");
+            final var mail = databaseService.dsl().selectFrom(MAIL_OUTBOX).fetchSingle();
+            assertFalse(mail.getContentText().contains("0neT1meP4ssw0rd"));
+            assertNotNull(mail.getSecretVariables());
+            assertFalse(mail.getSecretVariables().contains("0neT1meP4ssw0rd"));
+        });
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> GREEN_MAIL.getReceivedMessages().length == 1);
+        final var message = GREEN_MAIL.getReceivedMessages()[0];
+        assertEquals("Reset your password", message.getSubject());
+        assertEquals("john@localhost", message.getAllRecipients()[0].toString());
+        assertTrue(GreenMailUtil.getBody(message).contains("0neT1meP4ssw0rd"));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> databaseService.dsl().fetchCount(MAIL_OUTBOX) == 0);
+    }
+
+    @Test
+    void valuesAreNotRenderedAsPlaceholders() throws Exception {
+        GREEN_MAIL.purgeEmailFromAllMailboxes();
+        final var mailTemplate = databaseService.getMailTemplate(MailTemplateId.SECURITY_RESET_PASSWORD).orElseThrow();
+        final var contentText = mailTemplate.getContentText();
+        try {
+            mailTemplate.setContentText("Hello ${name}, your one time password is: ${password}");
+            mailTemplate.store();
+            databaseService.mailTemplateCache().invalidateAll();
+
+            databaseService.sendMail(MailTemplateId.SECURITY_RESET_PASSWORD,
+                    Map.of("name", "${password}", "password", "0neT1meP4ssw0rd"), "john@localhost");
+
+            await().atMost(Duration.ofSeconds(10)).until(() -> GREEN_MAIL.getReceivedMessages().length == 1);
+            assertTrue(GreenMailUtil.getBody(GREEN_MAIL.getReceivedMessages()[0])
+                    .contains("Hello ${password}, your one time password is: 0neT1meP4ssw0rd"));
+        } finally {
+            databaseService.dsl().update(MAIL_TEMPLATE)
+                    .set(MAIL_TEMPLATE.CONTENT_TEXT, contentText)
+                    .where(MAIL_TEMPLATE.ID.eq(MailTemplateId.SECURITY_RESET_PASSWORD.name()))
+                    .execute();
+            databaseService.mailTemplateCache().invalidateAll();
+        }
+    }
+
+    @Test
+    void failedMailsAreDeletedAfterRetention() {
+        final var expired = insertFailedMail(LocalDateTime.now().minusDays(8));
+        final var retained = insertFailedMail(LocalDateTime.now().minusDays(6));
+        try {
+            assertEquals(1, databaseService.deleteFailedMails(MAX_ATTEMPTS, Duration.ofDays(7)));
+            assertFalse(databaseService.dsl().fetchExists(MAIL_OUTBOX, MAIL_OUTBOX.ID.eq(expired)));
+            assertTrue(databaseService.dsl().fetchExists(MAIL_OUTBOX, MAIL_OUTBOX.ID.eq(retained)));
+        } finally {
+            databaseService.deleteMails(List.of(expired, retained));
+        }
+    }
+
+    private long insertFailedMail(@NotNull final LocalDateTime created) {
+        return databaseService.dsl().insertInto(MAIL_OUTBOX)
+                .set(MAIL_OUTBOX.SENDER, "alfons@localhost")
+                .set(MAIL_OUTBOX.RECIPIENTS, "john@localhost")
+                .set(MAIL_OUTBOX.SUBJECT, "Undeliverable")
+                .set(MAIL_OUTBOX.CONTENT_TEXT, "Undeliverable")
+                .set(MAIL_OUTBOX.CREATED, created)
+                .set(MAIL_OUTBOX.ATTEMPTS, MAX_ATTEMPTS)
+                .returning(MAIL_OUTBOX.ID)
+                .fetchSingle()
+                .getId();
+    }
+
+}
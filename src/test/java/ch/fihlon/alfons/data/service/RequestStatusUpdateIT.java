@@ -0,0 +1,66 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.data.service;
+
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
+import ch.fihlon.alfons.data.entity.RequestKey;
+import ch.fihlon.alfons.data.event.RequestEvent;
+import ch.fihlon.alfons.data.event.RequestEventBus;
+import ch.fihlon.alfons.ui.KaribuTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestStatusUpdateIT extends KaribuTest {
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private RequestEventBus requestEventBus;
+
+    @Test
+    void bulkUpdateAnnouncesOnlyTheChangedRequests() throws InterruptedException {
+        final var decided = new RequestKey(1, 1);
+        final var submitted = new RequestKey(2, 1);
+        databaseService.updateRequestStatus(decided.employeeId(), decided.conferenceId(), RequestStatus.declined);
+
+        final var batches = new LinkedBlockingQueue<List<RequestEvent>>();
+        final var unsubscribe = requestEventBus.subscribe(batches::add);
+        try {
+            assertEquals(1, databaseService.updateRequestStatus(List.of(decided, submitted), RequestStatus.approved));
+
+            assertEquals(List.of(new RequestEvent(RequestEvent.Type.CHANGED, submitted)), batches.poll(5, TimeUnit.SECONDS));
+            assertNull(batches.poll(1, TimeUnit.SECONDS));
+            assertEquals(RequestStatus.declined, databaseService.getRequestRecord(1L, 1L).orElseThrow().getStatus());
+            assertEquals(RequestStatus.approved, databaseService.getRequestRecord(2L, 1L).orElseThrow().getStatus());
+        } finally {
+            unsubscribe.run();
+            databaseService.updateRequestStatus(1L, 1L, RequestStatus.submitted);
+            databaseService.updateRequestStatus(2L, 1L, RequestStatus.submitted);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Collects the latencies of named operations from many threads and calculates percentiles.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Queue<Long>> samples = new ConcurrentSkipListMap<>();
+
+    /**
+     * Run an action and record how long it took.
+     *
+     * @param operation the name of the operation
+     * @param action the action to measure
+     */
+    void record(@NotNull final String operation, @NotNull final Runnable action) {
+        record(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run an action, record how long it took and return its result.
+     *
+     * @param operation the name of the operation
+     * @param action the action to measure
+     * @return the result of the action
+     * @param <T> the type of the result
+     */
+    <T> T record(@NotNull final String operation, @NotNull final Supplier<T> action) {
+        final var start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            samples.computeIfAbsent(operation, key -> new ConcurrentLinkedQueue<>())
+                    .add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Calculate the statistics of all recorded operations, ordered by operation name.
+     *
+     * @return the statistics per operation
+     */
+    @NotNull List<OperationStatistics> statistics() {
+        return samples.entrySet().stream()
+                .map(entry -> OperationStatistics.of(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Get the value at the given percentile using the nearest-rank method.
+     *
+     * @param sorted the values, sorted ascending
+     * @param percentile the percentile between 0 (exclusive) and 100 (inclusive)
+     * @return the value at the percentile
+     */
+    static long percentile(final long @NotNull [] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final var rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /**
+     * The latency statistics of one operation.
+     */
+    record OperationStatistics(@NotNull String operation, int count,
+                               @NotNull Duration p50, @NotNull Duration p95,
+                               @NotNull Duration p99, @NotNull Duration max) {
+
+        private static OperationStatistics of(@NotNull final String operation, @NotNull final Queue<Long> samples) {
+            final var sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new OperationStatistics(operation, sorted.length,
+                    Duration.ofNanos(percentile(sorted, 50)),
+                    Duration.ofNanos(percentile(sorted, 95)),
+                    Duration.ofNanos(percentile(sorted, 99)),
+                    Duration.ofNanos(percentile(sorted, 100)));
+        }
+
+    }
+
+}
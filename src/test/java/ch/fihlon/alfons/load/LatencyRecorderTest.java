@@ -0,0 +1,60 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LatencyRecorderTest {
+
+    @Test
+    void percentileUsesNearestRank() {
+        final long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(5, LatencyRecorder.percentile(sorted, 50));
+        assertEquals(10, LatencyRecorder.percentile(sorted, 95));
+        assertEquals(10, LatencyRecorder.percentile(sorted, 99));
+        assertEquals(1, LatencyRecorder.percentile(sorted, 1));
+        assertEquals(10, LatencyRecorder.percentile(sorted, 100));
+    }
+
+    @Test
+    void percentileOfNoSamplesIsZero() {
+        assertEquals(0, LatencyRecorder.percentile(new long[0], 99));
+    }
+
+    @Test
+    void statisticsPerOperation() {
+        final var recorder = new LatencyRecorder();
+        recorder.record("b", () -> { });
+        recorder.record("a", () -> "result");
+        recorder.record("a", () -> { });
+
+        final var statistics = recorder.statistics();
+        assertEquals(2, statistics.size());
+        assertEquals("a", statistics.get(0).operation());
+        assertEquals(2, statistics.get(0).count());
+        assertEquals("b", statistics.get(1).operation());
+        assertEquals(1, statistics.get(1).count());
+        assertEquals(statistics.get(1).p50(), statistics.get(1).max());
+        assertFalse(statistics.get(0).max().isNegative());
+    }
+
+}
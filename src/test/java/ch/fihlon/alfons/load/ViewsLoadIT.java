@@ -0,0 +1,342 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.load;
+
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
+import ch.fihlon.alfons.data.entity.Conference;
+import ch.fihlon.alfons.data.entity.ExportColumn;
+import ch.fihlon.alfons.data.entity.RequestListEntity;
+import ch.fihlon.alfons.data.entity.Role;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.KaribuTest;
+import ch.fihlon.alfons.ui.component.CsvStreamResource;
+import ch.fihlon.alfons.ui.view.conference.ConferencesView;
+import ch.fihlon.alfons.ui.view.request.RequestsView;
+import com.github.mvysny.kaributesting.v10.GridKt;
+import com.github.mvysny.kaributesting.v10.MockVaadin;
+import com.github.mvysny.kaributools.RouterUtilsKt;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.icon.VaadinIcon;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.server.VaadinSession;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
+import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
+import static com.github.mvysny.kaributesting.v10.LocatorJ._click;
+import static com.github.mvysny.kaributesting.v10.LocatorJ._get;
+import static com.github.mvysny.kaributesting.v10.LocatorJ._setValue;
+import static com.github.mvysny.kaributesting.v10.pro.ConfirmDialogKt._fireConfirm;
+import static org.jooq.impl.DSL.max;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the requests and conferences views with many concurrent Karibu sessions against a seeded
+ * database and reports the latency percentiles per operation and the heap used per session.
+ * <p></p>
+ * The test is skipped unless the system property <code>alfons.load.enabled</code> is <code>true</code>,
+ * which the <code>load</code> Maven profile does (<code>./mvnw -Pload verify</code>). The volumes can be
+ * changed with the system properties <code>alfons.load.employees</code>, <code>alfons.load.conferences</code>,
+ * <code>alfons.load.requests</code>, <code>alfons.load.sessions</code> and <code>alfons.load.iterations</code>.
+ */
+@EnabledIfSystemProperty(named = "alfons.load.enabled", matches = "true")
+class ViewsLoadIT extends KaribuTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ViewsLoadIT.class);
+
+    private static final int EMPLOYEES = Integer.getInteger("alfons.load.employees", 5_000);
+    private static final int CONFERENCES = Integer.getInteger("alfons.load.conferences", 2_000);
+    private static final int REQUESTS = Integer.getInteger("alfons.load.requests", 200_000);
+    private static final int SESSIONS = Integer.getInteger("alfons.load.sessions", 20);
+    private static final int ITERATIONS = Integer.getInteger("alfons.load.iterations", 10);
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SCROLL_PAGES = 5;
+    private static final long SESSION_TIMEOUT_MINUTES = 30;
+    private static final LocalDate SEED_DATE = LocalDate.of(2020, 1, 1);
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final AtomicInteger skippedApprovals = new AtomicInteger();
+
+    private long employeeBase;
+    private long conferenceBase;
+
+    @BeforeEach
+    void seedDatabase() {
+        assertTrue((long) EMPLOYEES * CONFERENCES >= REQUESTS,
+                "Every request needs a unique combination of employee and conference");
+        final var dsl = databaseService.dsl();
+        employeeBase = dsl.select(max(EMPLOYEE.ID)).from(EMPLOYEE).fetchOne().value1();
+        conferenceBase = dsl.select(max(CONFERENCE.ID)).from(CONFERENCE).fetchOne().value1();
+
+        final var start = System.nanoTime();
+        // MariaDB provides the virtual sequence tables seq_1_to_N, so the data is generated by the database itself
+        dsl.execute("""
+                INSERT INTO employee (id, first_name, last_name, email, admin, password_change, theme)
+                SELECT ? + seq, CONCAT('Load', seq), CONCAT('Employee', seq), CONCAT('load.employee', seq, '@localhost'), 0, 0, 'light'
+                FROM seq_1_to_%d""".formatted(EMPLOYEES), employeeBase);
+        dsl.execute("""
+                INSERT INTO conference (id, name, begin_date, end_date, website, ticket, travel, accommodation)
+                SELECT ? + seq, CONCAT('Load Conference ', seq), DATE_ADD(?, INTERVAL seq DAY), DATE_ADD(?, INTERVAL seq + 2 DAY),
+                       CONCAT('https://conference', seq, '.example.com'), seq %% 1000, seq %% 500, seq %% 800
+                FROM seq_1_to_%d""".formatted(CONFERENCES), conferenceBase, SEED_DATE, SEED_DATE);
+        dsl.execute("""
+                INSERT INTO request (employee_id, conference_id, request_date, role, reason, status, status_date, status_comment)
+                SELECT ? + 1 + (seq - 1) %% ?, ? + 1 + ((seq - 1) DIV ?) %% ?,
+                       DATE_ADD(?, INTERVAL seq MINUTE), 'attendee', 'Load test', 'submitted', DATE_ADD(?, INTERVAL seq MINUTE), ''
+                FROM seq_1_to_%d""".formatted(REQUESTS),
+                employeeBase, EMPLOYEES, conferenceBase, EMPLOYEES, CONFERENCES, SEED_DATE, SEED_DATE);
+        LOGGER.info("Seeded {} employees, {} conferences and {} requests in {} ms",
+                EMPLOYEES, CONFERENCES, REQUESTS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @AfterEach
+    void removeSeededData() {
+        final var dsl = databaseService.dsl();
+        dsl.deleteFrom(REQUEST).where(REQUEST.EMPLOYEE_ID.gt(employeeBase).or(REQUEST.CONFERENCE_ID.gt(conferenceBase))).execute();
+        dsl.deleteFrom(CONFERENCE).where(CONFERENCE.ID.gt(conferenceBase)).execute();
+        dsl.deleteFrom(EMPLOYEE).where(EMPLOYEE.ID.gt(employeeBase)).execute();
+    }
+
+    @Test
+    void concurrentSessions() throws Exception {
+        final var finished = new CountDownLatch(SESSIONS);
+        final var release = new CountDownLatch(1);
+        final var heapBefore = usedHeapAfterGc();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(SESSIONS);
+        final var sessions = new ArrayList<Future<Long>>(SESSIONS);
+        try {
+            for (var session = 0; session < SESSIONS; session++) {
+                final var seed = session;
+                sessions.add(executor.submit(() -> runSession(seed, finished, release)));
+            }
+            assertTrue(finished.await(SESSION_TIMEOUT_MINUTES, TimeUnit.MINUTES), "The sessions did not finish in time");
+            // all sessions are still open here, so the difference approximates the heap they retain
+            final var heapPerSession = (usedHeapAfterGc() - heapBefore) / SESSIONS;
+            release.countDown();
+
+            var allocated = 0L;
+            for (final var session : sessions) {
+                allocated += session.get(SESSION_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            }
+            report(heapPerSession, allocated / SESSIONS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private long runSession(final int seed, @NotNull final CountDownLatch finished,
+                            @NotNull final CountDownLatch release) throws InterruptedException {
+        final var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        final var random = new Random(seed);
+        setupVaadin();
+        try {
+            login("john.doe@localhost", "admin", List.of(Role.USER, Role.ADMIN));
+            try {
+                for (var iteration = 0; iteration < ITERATIONS; iteration++) {
+                    requestsWorkflow(random);
+                    conferencesWorkflow(random);
+                }
+            } finally {
+                finished.countDown();
+            }
+            release.await();
+            return threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        } finally {
+            logout();
+            MockVaadin.tearDown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void requestsWorkflow(@NotNull final Random random) {
+        final var view = recorder.record("requests: open", () -> {
+            RouterUtilsKt.navigateTo("/requests");
+            final var requestsView = _get(RequestsView.class);
+            GridKt._fetch(_get(requestsView, Grid.class), 0, PAGE_SIZE);
+            return requestsView;
+        });
+        final Grid<RequestListEntity> grid = _get(view, Grid.class);
+        final var filterField = _get(view, TextField.class, spec -> spec.withPlaceholder("Filter"));
+
+        for (var page = 1; page <= SCROLL_PAGES; page++) {
+            final var offset = page * PAGE_SIZE;
+            recorder.record("requests: scroll", () -> GridKt._fetch(grid, offset, PAGE_SIZE));
+        }
+
+        final var filter = "Employee" + (1 + random.nextInt(EMPLOYEES));
+        recorder.record("requests: filter", () -> {
+            _setValue(filterField, filter);
+            GridKt._size(grid);
+            GridKt._fetch(grid, 0, PAGE_SIZE);
+        });
+        final var exported = new LineCountingOutputStream();
+        recorder.record("requests: export", () -> export(filter, exported));
+        assertEquals(ExportColumn.header(RequestListEntity.EXPORT_COLUMNS).length, exported.firstLine().split(",").length);
+        assertEquals(databaseService.countRequests(filter) + 1, exported.lines());
+
+        _setValue(filterField, "");
+        final var size = GridKt._size(grid);
+        final var row = random.nextInt(size);
+        if (GridKt._get(grid, row).status() == RequestStatus.submitted) {
+            recorder.record("requests: approve", () -> {
+                final var actions = (HorizontalLayout) GridKt._getCellComponent(grid, row, "actions");
+                _click(_get(actions, Button.class, spec -> spec.withIcon(VaadinIcon.CHECK)));
+                _fireConfirm(_get(ConfirmDialog.class));
+            });
+        } else {
+            skippedApprovals.incrementAndGet();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void conferencesWorkflow(@NotNull final Random random) {
+        final var view = recorder.record("conferences: open", () -> {
+            RouterUtilsKt.navigateTo("/conferences");
+            final var conferencesView = _get(ConferencesView.class);
+            GridKt._fetch(_get(conferencesView, Grid.class), 0, PAGE_SIZE);
+            return conferencesView;
+        });
+        final Grid<Conference> grid = _get(view, Grid.class);
+        final var filterField = _get(view, TextField.class, spec -> spec.withPlaceholder("Filter"));
+
+        for (var page = 1; page <= SCROLL_PAGES; page++) {
+            final var offset = page * PAGE_SIZE;
+            recorder.record("conferences: scroll", () -> GridKt._fetch(grid, offset, PAGE_SIZE));
+        }
+
+        final var filter = "Conference " + (1 + random.nextInt(CONFERENCES));
+        recorder.record("conferences: filter", () -> {
+            _setValue(filterField, filter);
+            GridKt._size(grid);
+            GridKt._fetch(grid, 0, PAGE_SIZE);
+        });
+    }
+
+    /**
+     * Write the filtered requests the same way the CSV download of the requests view does, without
+     * a browser fetching the resource.
+     */
+    private void export(@NotNull final String filter, @NotNull final OutputStream outputStream) {
+        final var resource = new CsvStreamResource("requests.csv", RequestListEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportRequests(filter), Locale.getDefault(), ZoneId.systemDefault());
+        try {
+            resource.getWriter().accept(outputStream, VaadinSession.getCurrent());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void report(final long heapPerSession, final long allocatedPerSession) {
+        final var report = new StringBuilder(1_024)
+                .append("Load test with %d sessions, %d iterations, %d employees, %d conferences and %d requests%n"
+                        .formatted(SESSIONS, ITERATIONS, EMPLOYEES, CONFERENCES, REQUESTS))
+                .append("%-22s %8s %10s %10s %10s %10s%n".formatted("operation", "count", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (final var statistics : recorder.statistics()) {
+            report.append("%-22s %8d %10d %10d %10d %10d%n".formatted(statistics.operation(), statistics.count(),
+                    statistics.p50().toMillis(), statistics.p95().toMillis(),
+                    statistics.p99().toMillis(), statistics.max().toMillis()));
+        }
+        report.append("approvals skipped (request not submitted anymore): %d%n".formatted(skippedApprovals.get()))
+                .append("retained heap per session: %d KiB%n".formatted(heapPerSession / 1_024))
+                .append("allocated per session: %d KiB".formatted(allocatedPerSession / 1_024));
+        LOGGER.info("{}", report);
+
+        assertEquals(SESSIONS * ITERATIONS, recorder.statistics().stream()
+                .filter(statistics -> statistics.operation().equals("requests: open"))
+                .mapToInt(LatencyRecorder.OperationStatistics::count)
+                .sum());
+    }
+
+    /**
+     * Counts the lines of an export and keeps only the first one, so large exports can be checked
+     * without buffering them.
+     */
+    private static final class LineCountingOutputStream extends OutputStream {
+
+        private final StringBuilder firstLine = new StringBuilder();
+        private long lines;
+
+        @Override
+        public void write(final int b) {
+            if (b == '\n') {
+                lines++;
+            } else if (lines == 0) {
+                firstLine.append((char) b);
+            }
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            for (var i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+
+        String firstLine() {
+            return firstLine.toString();
+        }
+
+        long lines() {
+            return lines;
+        }
+
+    }
+
+}
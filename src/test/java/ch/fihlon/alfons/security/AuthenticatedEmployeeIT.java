@@ -0,0 +1,133 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import ch.fihlon.alfons.data.db.enums.EmployeeTheme;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.KaribuTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static ch.fihlon.alfons.data.db.tables.Employee.EMPLOYEE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuthenticatedEmployeeIT extends KaribuTest {
+
+    private static final String EMAIL = "jane.doe@localhost";
+    private static final String OTHER_EMAIL = "john.doe@localhost";
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private AuthenticatedEmployee authenticatedEmployee;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void authenticate() {
+        final var employee = databaseService.getEmployeeByEmail(EMAIL).orElseThrow();
+        final var principal = new EmployeeUserDetails(employee, authenticatedEmployee.version(),
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void restoreTheme() {
+        for (final var email : List.of(EMAIL, OTHER_EMAIL)) {
+            final var employee = databaseService.getEmployeeByEmail(email).orElseThrow();
+            databaseService.updateEmployeeTheme(employee.getId(), EmployeeTheme.light);
+        }
+        authenticatedEmployee.invalidate();
+    }
+
+    @Test
+    void employeeOfThePrincipalIsUsedUntilInvalidated() {
+        final var misses = meterRegistry.get("alfons.employee.cache").tag("result", "miss").counter();
+        final var missesBefore = misses.count();
+        final var employee = authenticatedEmployee.get().orElseThrow();
+        assertEquals(EMAIL, employee.email());
+        assertEquals(EmployeeTheme.light, employee.theme());
+        assertEquals(employee, authenticatedEmployee.get().orElseThrow());
+        assertEquals(missesBefore, misses.count());
+
+        databaseService.updateEmployeeTheme(employee.id(), EmployeeTheme.dark);
+        authenticatedEmployee.invalidate();
+        final var reloaded = authenticatedEmployee.get().orElseThrow();
+        assertEquals(employee.id(), reloaded.id());
+        assertEquals(EmployeeTheme.dark, reloaded.theme());
+        assertEquals(missesBefore + 1, misses.count());
+    }
+
+    @Test
+    void changesOfOtherEmployeesAndPasswordHashesKeepTheEmployee() {
+        final var misses = meterRegistry.get("alfons.employee.cache").tag("result", "miss").counter();
+        final var missesBefore = misses.count();
+        final var employee = authenticatedEmployee.get().orElseThrow();
+
+        final var otherEmployee = databaseService.getEmployeeByEmail(OTHER_EMAIL).orElseThrow();
+        databaseService.updateEmployeeTheme(otherEmployee.getId(), EmployeeTheme.dark);
+        // e.g. the password hash upgraded on login
+        final var passwordHash = databaseService.getEmployeeByEmail(EMAIL).orElseThrow().getPasswordHash();
+        try {
+            setPasswordHash(employee.id(), passwordHash + "-upgraded");
+            authenticatedEmployee.invalidate();
+
+            assertEquals(employee, authenticatedEmployee.get().orElseThrow());
+            assertEquals(missesBefore, misses.count());
+        } finally {
+            setPasswordHash(employee.id(), passwordHash);
+        }
+    }
+
+    @Test
+    void changeOnAnotherNodeIsPickedUpWithTheNextPoll() {
+        final var employee = authenticatedEmployee.get().orElseThrow();
+        assertEquals(EmployeeTheme.light, employee.theme());
+
+        // another node changes the employee without invalidating the cache of this node
+        databaseService.dsl().update(EMPLOYEE)
+                .set(EMPLOYEE.THEME, EmployeeTheme.dark)
+                .where(EMPLOYEE.ID.eq(employee.id()))
+                .execute();
+        assertEquals(EmployeeTheme.light, authenticatedEmployee.get().orElseThrow().theme());
+
+        authenticatedEmployee.refresh();
+        assertEquals(EmployeeTheme.dark, authenticatedEmployee.get().orElseThrow().theme());
+    }
+
+    private void setPasswordHash(final long employeeId, @NotNull final String passwordHash) {
+        databaseService.dsl().update(EMPLOYEE)
+                .set(EMPLOYEE.PASSWORD_HASH, passwordHash)
+                .where(EMPLOYEE.ID.eq(employeeId))
+                .execute();
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashingPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HashingPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    void shutdown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatch() {
+        passwordEncoder = new HashingPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, meterRegistry);
+        final var hash = passwordEncoder.encode("secret");
+        assertTrue(passwordEncoder.matches("secret", hash));
+        assertFalse(passwordEncoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get(HashingPasswordEncoder.METRIC_NAME).tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get(HashingPasswordEncoder.METRIC_NAME).tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncodingToHigherStrength() {
+        final var weakHash = new BCryptPasswordEncoder(4).encode("secret");
+        passwordEncoder = new HashingPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1, meterRegistry);
+        assertTrue(passwordEncoder.upgradeEncoding(weakHash));
+        assertFalse(passwordEncoder.upgradeEncoding(passwordEncoder.encode("secret")));
+    }
+
+    @Test
+    void rejectWhenSaturated() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        passwordEncoder = new HashingPasswordEncoder(new BlockingPasswordEncoder(started, release), 1, 1, meterRegistry);
+
+        // the first hash occupies the only thread, the second waits in the queue
+        final var running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final var queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        final var queue = meterRegistry.get(HashingPasswordEncoder.METRIC_NAME + ".queue").gauge();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (queue.value() < 1) {
+                Thread.onSpinWait();
+            }
+        });
+
+        final var exception = assertThrows(PasswordHashingRejectedException.class, () -> passwordEncoder.encode("third"));
+        assertTrue(exception.getRetryAfter().toSeconds() >= 1);
+        assertEquals(1, meterRegistry.get(HashingPasswordEncoder.METRIC_NAME + ".rejected").counter().count());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private record BlockingPasswordEncoder(@NotNull CountDownLatch started, @NotNull CountDownLatch release)
+            implements PasswordEncoder {
+
+        @Override
+        public String encode(@NotNull final CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(@NotNull final CharSequence rawPassword, @NotNull final String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginAttemptServiceTest {
+
+    private static final String IP = "192.0.2.1";
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginAttemptService createService(final int maxAttempts, final long maxKeys) {
+        final var window = Duration.ofHours(24);
+        return new LoginAttemptService(clock, new InMemoryLoginThrottleStore(clock, window, maxKeys), maxAttempts, window, meterRegistry);
+    }
+
+    @Test
+    void blockedAfterMaxAttempts() {
+        final var service = createService(3, 100);
+        service.loginFailed(IP);
+        service.loginFailed(IP);
+        assertFalse(service.isBlocked(IP));
+        service.loginFailed(IP);
+        assertTrue(service.isBlocked(IP));
+        assertFalse(service.isBlocked("192.0.2.2"));
+        assertEquals(1, meterRegistry.get(LoginAttemptService.METRIC_NAME + ".blocked").counter().count());
+    }
+
+    @Test
+    void successfulLoginResetsAttempts() {
+        final var service = createService(2, 100);
+        service.loginFailed(IP);
+        service.loginSucceeded(IP);
+        service.loginFailed(IP);
+        assertFalse(service.isBlocked(IP));
+    }
+
+    @Test
+    void attemptsExpireWithTheSlidingWindow() {
+        final var service = createService(2, 100);
+        service.loginFailed(IP);
+        clock.advance(Duration.ofHours(12));
+        service.loginFailed(IP);
+        assertTrue(service.isBlocked(IP));
+
+        // the first attempt left the window, the second is still in it
+        clock.advance(Duration.ofHours(13));
+        assertFalse(service.isBlocked(IP));
+        service.loginFailed(IP);
+        assertTrue(service.isBlocked(IP));
+
+        clock.advance(Duration.ofHours(25));
+        assertFalse(service.isBlocked(IP));
+    }
+
+    @Test
+    void trackedKeysAreBounded() {
+        final var service = createService(1, 10);
+        IntStream.range(0, 1000).forEach(i -> service.loginFailed("10.0.%d.%d".formatted(i / 256, i % 256)));
+        final var keys = meterRegistry.get(LoginAttemptService.METRIC_NAME + ".keys").gauge().value();
+        assertTrue(keys <= 10, "tracked keys: " + keys);
+        assertTrue(service.isBlocked("10.0.3.231"));
+    }
+
+    @Test
+    void ipAddressesAreNormalized() {
+        assertEquals(IP, LoginAttemptService.normalize(" " + IP + " "));
+        assertEquals("2001:db8::1", LoginAttemptService.normalize("2001:0DB8:0000:0000:0000:0000:0000:0001"));
+        assertEquals(LoginAttemptService.UNKNOWN_IP, LoginAttemptService.normalize("x".repeat(1_000)));
+        assertEquals(LoginAttemptService.UNKNOWN_IP, LoginAttemptService.normalize("example.com"));
+
+        final var service = createService(2, 100);
+        service.loginFailed(IP);
+        service.loginFailed(IP + " ");
+        assertTrue(service.isBlocked(IP));
+    }
+
+    @Test
+    void concurrentFailuresAreCounted() {
+        final var service = createService(1000, 100);
+        CompletableFuture.allOf(IntStream.range(0, 999)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> service.loginFailed(IP)))
+                .toArray(CompletableFuture[]::new)).join();
+        assertFalse(service.isBlocked(IP));
+        service.loginFailed(IP);
+        assertTrue(service.isBlocked(IP));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2020-02-02T08:00:00Z");
+
+        private void advance(@NotNull final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(@NotNull final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+}
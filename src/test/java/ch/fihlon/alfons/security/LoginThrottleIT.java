@@ -0,0 +1,182 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.security;
+
+import ch.fihlon.alfons.data.event.LocalRequestEventFanOut;
+import ch.fihlon.alfons.data.event.RequestEventBus;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jooq.JooqAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two nodes, each with its own application context, against the same database. The nodes
+ * contain only the beans needed for the login throttling; the changes are written by calling
+ * {@link DatabaseLoginThrottleStore#flush()} instead of waiting for the schedule.
+ */
+class LoginThrottleIT {
+
+    private static final String IP = "198.51.100.7";
+    private static final int MAX_KEYS = 2;
+    private static final List<String> SPOOFED_IPS = List.of("203.0.113.1", "203.0.113.2", "203.0.113.3");
+
+    private ConfigurableApplicationContext firstNode;
+    private ConfigurableApplicationContext secondNode;
+
+    @BeforeEach
+    void startNodes() {
+        firstNode = startNode();
+        secondNode = startNode();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        flush(firstNode);
+        flush(secondNode);
+        firstNode.getBean(DatabaseService.class).deleteLoginFailures(List.of(IP));
+        firstNode.getBean(DatabaseService.class).deleteLoginFailures(SPOOFED_IPS);
+        firstNode.getBean(DatabaseService.class).deleteLoginFailures(List.of(LoginAttemptService.UNKNOWN_IP));
+        secondNode.close();
+        firstNode.close();
+    }
+
+    @Test
+    void failedAttemptsOfAllNodesAreCounted() {
+        final var first = firstNode.getBean(LoginAttemptService.class);
+        final var second = secondNode.getBean(LoginAttemptService.class);
+
+        first.loginFailed(IP);
+        flush(firstNode);
+        second.loginFailed(IP);
+        assertFalse(second.isBlocked(IP));
+
+        // the attempts which were not written yet are counted on the node they happened on
+        second.loginFailed(IP);
+        assertTrue(second.isBlocked(IP));
+        assertFalse(first.isBlocked(IP));
+
+        flush(secondNode);
+        assertTrue(first.isBlocked(IP));
+        assertTrue(second.isBlocked(IP));
+    }
+
+    @Test
+    void successfulLoginOnOneNodeUnblocksAllNodes() {
+        final var first = firstNode.getBean(LoginAttemptService.class);
+        final var second = secondNode.getBean(LoginAttemptService.class);
+
+        first.loginFailed(IP);
+        first.loginFailed(IP);
+        first.loginFailed(IP);
+        flush(firstNode);
+        assertTrue(first.isBlocked(IP));
+        assertTrue(second.isBlocked(IP));
+
+        second.loginSucceeded(IP);
+        assertFalse(second.isBlocked(IP));
+        flush(secondNode);
+        assertFalse(first.isBlocked(IP));
+
+        second.loginFailed(IP);
+        flush(secondNode);
+        assertFalse(first.isBlocked(IP));
+    }
+
+    @Test
+    void numberOfTrackedIpAddressesIsBounded() {
+        final var first = firstNode.getBean(LoginAttemptService.class);
+
+        SPOOFED_IPS.forEach(first::loginFailed);
+        flush(firstNode);
+        assertEquals(MAX_KEYS, firstNode.getBean(DatabaseLoginThrottleStore.class).trackedKeys());
+    }
+
+    @Test
+    void invalidIpAddressDoesNotDropOtherFailures() {
+        final var first = firstNode.getBean(LoginAttemptService.class);
+        final var second = secondNode.getBean(LoginAttemptService.class);
+
+        first.loginFailed("x".repeat(1_000));
+        first.loginFailed(IP);
+        first.loginFailed(IP);
+        first.loginFailed(IP);
+        flush(firstNode);
+        assertTrue(second.isBlocked(IP));
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(Node.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "alfons.security.login-throttle.store=database",
+                        "alfons.security.login-attempts.max=3",
+                        "alfons.security.login-attempts.max-keys=" + MAX_KEYS)
+                .run();
+    }
+
+    private static void flush(@NotNull final ConfigurableApplicationContext node) {
+        node.getBean(DatabaseLoginThrottleStore.class).flush();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            PropertyPlaceholderAutoConfiguration.class,
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            FlywayAutoConfiguration.class,
+            JooqAutoConfiguration.class,
+            MailSenderAutoConfiguration.class})
+    @Import({
+            DatabaseService.class,
+            RequestEventBus.class,
+            LocalRequestEventFanOut.class,
+            DatabaseLoginThrottleStore.class,
+            LoginAttemptService.class})
+    static class Node {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+}
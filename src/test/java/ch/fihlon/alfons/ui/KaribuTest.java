@@ -82,6 +82,14 @@ public abstract class KaribuTest {
      */
     @BeforeEach
     public void beforeEach() {
+        setupVaadin();
+    }
+
+    /**
+     * Set up a mocked Vaadin session and UI for the current thread. Tests which simulate several
+     * concurrent sessions call this from every worker thread.
+     */
+    protected void setupVaadin() {
         final Function0<UI> uiFactory = UI::new;
         final var servlet = new MockSpringServlet(routes, applicationContext, uiFactory);
         MockVaadin.setup(uiFactory, servlet);
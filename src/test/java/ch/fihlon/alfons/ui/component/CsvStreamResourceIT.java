@@ -0,0 +1,75 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import ch.fihlon.alfons.data.entity.RequestListEntity;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.KaribuTest;
+import com.opencsv.CSVReader;
+import com.vaadin.flow.server.VaadinSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+
+import static ch.fihlon.alfons.util.FormatterUtil.formatDateTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvStreamResourceIT extends KaribuTest {
+
+    // far away from the time zone of the server, so the converted dates differ
+    private static final Locale LOCALE = Locale.ENGLISH;
+    private static final ZoneId ZONE = ZoneId.of("Pacific/Kiritimati");
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void filteredExportContainsTheHeaderAndTheMatchingRowsInTheTimeZoneOfTheUser() throws Exception {
+        final var resource = new CsvStreamResource("requests.csv", RequestListEntity.EXPORT_COLUMNS,
+                () -> databaseService.exportRequests("Jane"), LOCALE, ZONE);
+        final var outputStream = new ByteArrayOutputStream();
+        resource.getWriter().accept(outputStream, VaadinSession.getCurrent());
+
+        try (var reader = new CSVReader(new StringReader(outputStream.toString(UTF_8)))) {
+            final var lines = reader.readAll();
+            assertEquals(2, lines.size());
+            assertArrayEquals(new String[] {
+                    "Employee ID", "Employee First Name", "Employee Last Name",
+                    "Conference ID", "Conference Name", "Conference Website",
+                    "Request Date", "Request Role", "Request Reason",
+                    "Status", "Status Date", "Status Comment"
+            }, lines.get(0));
+            assertArrayEquals(new String[] {
+                    "2", "Jane", "Doe",
+                    "1", "Test Conference 1", "https://localhost/",
+                    formatDateTime(LocalDateTime.of(2023, 1, 2, 12, 0), LOCALE, ZONE), "attendee",
+                    "Lorem ipsum dolor sit amet, consetetur sadipscing elitr, sed diam.",
+                    "submitted", formatDateTime(LocalDateTime.of(2023, 1, 1, 12, 0), LOCALE, ZONE), ""
+            }, lines.get(1));
+        }
+    }
+
+}
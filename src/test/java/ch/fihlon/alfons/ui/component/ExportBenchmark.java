@@ -0,0 +1,105 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares the streaming CSV and XLSX exports with the former CSV export, which buffered the whole
+ * file in memory. The forks run with a small heap, so an export which does not stream fails with an
+ * {@link OutOfMemoryError} for large row counts. Run with {@code -prof gc} to see the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx128m")
+public class ExportBenchmark {
+
+    private static final Locale LOCALE = Locale.ENGLISH;
+    private static final ZoneId ZONE = ZoneId.of("Europe/Zurich");
+
+    private static final String[] HEADER = {
+            "Employee ID", "Employee First Name", "Employee Last Name",
+            "Conference ID", "Conference Name", "Conference Website",
+            "Request Date", "Request Role", "Request Reason",
+            "Status", "Status Date", "Status Comment"
+    };
+
+    private static final LocalDateTime REQUEST_DATE = LocalDateTime.of(2024, 4, 1, 9, 30);
+
+    @Param({"10000", "100000"})
+    private int rowCount;
+
+    private Stream<Object[]> rows() {
+        return IntStream.range(0, rowCount).mapToObj(row -> new Object[] {
+                (long) row, "John", "Doe",
+                (long) row % 100, "Conference " + row % 100, "https://www.example.com/",
+                REQUEST_DATE, "attendee", "I would like to learn something new about Java and meet the community.",
+                "submitted", REQUEST_DATE, null
+        });
+    }
+
+    @Benchmark
+    public void csvBuffered() throws IOException {
+        final var stringWriter = new StringWriter();
+        final var csvWriter = new CSVWriter(stringWriter);
+        csvWriter.writeNext(HEADER);
+        rows().map(row -> CsvStreamResource.formatRow(row, LOCALE, ZONE)).forEach(csvWriter::writeNext);
+        try (InputStream inputStream = new ByteArrayInputStream(stringWriter.toString().getBytes(UTF_8))) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void csvStreaming() throws IOException {
+        CsvStreamResource.write(OutputStream.nullOutputStream(), HEADER, () -> rows().map(row -> CsvStreamResource.formatRow(row, LOCALE, ZONE)));
+    }
+
+    @Benchmark
+    public void xlsxStreaming() throws IOException {
+        XlsxStreamResource.write(OutputStream.nullOutputStream(), "Requests", HEADER, this::rows, ZONE);
+    }
+
+}
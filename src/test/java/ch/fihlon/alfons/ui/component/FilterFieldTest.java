@@ -0,0 +1,58 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilterFieldTest {
+
+    @Test
+    void allListenersReceiveEachFilterChangeOnce() {
+        final var filterField = new FilterField();
+        final List<String> first = new ArrayList<>();
+        final List<String> second = new ArrayList<>();
+        filterField.addFilterChangeListener(first::add);
+        filterField.addFilterChangeListener(second::add);
+
+        filterField.setValue("Jane");
+        filterField.setValue(" Jane ");
+        filterField.setValue("John");
+
+        assertEquals(List.of("Jane", "John"), first);
+        assertEquals(List.of("Jane", "John"), second);
+    }
+
+    @Test
+    void removedListenerIsNotCalled() {
+        final var filterField = new FilterField();
+        final List<String> filters = new ArrayList<>();
+        final var registration = filterField.addFilterChangeListener(filters::add);
+
+        filterField.setValue("Jane");
+        registration.remove();
+        filterField.setValue("John");
+
+        assertEquals(List.of("Jane"), filters);
+    }
+}
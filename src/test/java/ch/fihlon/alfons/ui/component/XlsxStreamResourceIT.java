@@ -0,0 +1,81 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.component;
+
+import ch.fihlon.alfons.data.entity.BudgetEntry;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.KaribuTest;
+import com.vaadin.flow.server.VaadinSession;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XlsxStreamResourceIT extends KaribuTest {
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Test
+    void budgetExportContainsOneSheetPerDimension() throws Exception {
+        final var resource = new XlsxStreamResource("budget.xlsx", List.of(
+                XlsxStreamResource.Sheet.of("Years", BudgetEntry.YEAR_EXPORT_COLUMNS, () -> databaseService.getBudgetPerYear().stream()),
+                XlsxStreamResource.Sheet.of("Employees", BudgetEntry.EXPORT_COLUMNS, () -> databaseService.getBudgetPerEmployee().stream()),
+                XlsxStreamResource.Sheet.of("Conferences", BudgetEntry.EXPORT_COLUMNS, () -> databaseService.getBudgetPerConference().stream())),
+                ZoneId.systemDefault());
+        final var outputStream = new ByteArrayOutputStream();
+        resource.getWriter().accept(outputStream, VaadinSession.getCurrent());
+
+        // two submitted requests for "Test Conference 1" (2020) with costs of 50 each
+        try (var workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+
+            final var years = workbook.getSheet("Years");
+            assertEquals(1, years.getLastRowNum());
+            assertEquals(List.of("Year", "Committed Requests", "Committed Amount", "Approved Requests", "Approved Amount"),
+                    values(years.getRow(0)));
+            assertEquals(List.of("2020.0", "2.0", "100.0", "0.0", "0.0"), values(years.getRow(1)));
+
+            final var employees = workbook.getSheet("Employees");
+            assertEquals(2, employees.getLastRowNum());
+            assertEquals(List.of("2020.0", "Jane Doe", "1.0", "50.0", "0.0", "0.0"), values(employees.getRow(1)));
+            assertEquals(List.of("2020.0", "John Doe", "1.0", "50.0", "0.0", "0.0"), values(employees.getRow(2)));
+
+            final var conferences = workbook.getSheet("Conferences");
+            assertEquals(1, conferences.getLastRowNum());
+            assertEquals(List.of("2020.0", "Test Conference 1", "2.0", "100.0", "0.0", "0.0"), values(conferences.getRow(1)));
+        }
+    }
+
+    private static List<String> values(@NotNull final Row row) {
+        final var values = new ArrayList<String>();
+        row.forEach(cell -> values.add(cell.toString()));
+        return values;
+    }
+
+}
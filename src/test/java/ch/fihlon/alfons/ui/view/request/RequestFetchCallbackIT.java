@@ -0,0 +1,149 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.ui.view.request;
+
+import ch.fihlon.alfons.data.entity.RequestKey;
+import ch.fihlon.alfons.data.entity.RequestListEntity;
+import ch.fihlon.alfons.data.service.DatabaseService;
+import ch.fihlon.alfons.ui.KaribuTest;
+import com.vaadin.flow.data.provider.Query;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static ch.fihlon.alfons.data.db.tables.Conference.CONFERENCE;
+import static ch.fihlon.alfons.data.db.tables.Request.REQUEST;
+import static org.jooq.impl.DSL.max;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestFetchCallbackIT extends KaribuTest {
+
+    private static final int CONFERENCES = 40;
+    private static final int PAGE_SIZE = 25;
+    // all seeded requests share the same date, so the pages are separated by the tie-breaking key columns
+    private static final LocalDateTime REQUEST_DATE = LocalDateTime.of(2021, 1, 1, 10, 0);
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    private long conferenceBase;
+
+    @BeforeEach
+    void seedRequests() {
+        final var dsl = databaseService.dsl();
+        conferenceBase = dsl.select(max(CONFERENCE.ID)).from(CONFERENCE).fetchOne().value1();
+        for (var conference = 1; conference <= CONFERENCES; conference++) {
+            final var conferenceId = conferenceBase + conference;
+            dsl.insertInto(CONFERENCE)
+                    .set(CONFERENCE.ID, conferenceId)
+                    .set(CONFERENCE.NAME, "Paging Conference " + conference)
+                    .set(CONFERENCE.BEGIN_DATE, LocalDate.of(2021, 3, 1))
+                    .set(CONFERENCE.END_DATE, LocalDate.of(2021, 3, 2))
+                    .set(CONFERENCE.WEBSITE, "https://paging.example.com")
+                    .set(CONFERENCE.TICKET, 0)
+                    .set(CONFERENCE.TRAVEL, 0)
+                    .set(CONFERENCE.ACCOMMODATION, 0)
+                    .execute();
+            for (var employeeId = 1L; employeeId <= 2L; employeeId++) {
+                dsl.insertInto(REQUEST)
+                        .set(REQUEST.EMPLOYEE_ID, employeeId)
+                        .set(REQUEST.CONFERENCE_ID, conferenceId)
+                        .set(REQUEST.REQUEST_DATE, REQUEST_DATE)
+                        .set(REQUEST.REASON, "Paging test")
+                        .execute();
+            }
+        }
+    }
+
+    @AfterEach
+    void removeRequests() {
+        final var dsl = databaseService.dsl();
+        dsl.deleteFrom(REQUEST).where(REQUEST.CONFERENCE_ID.gt(conferenceBase)).execute();
+        dsl.deleteFrom(CONFERENCE).where(CONFERENCE.ID.gt(conferenceBase)).execute();
+    }
+
+    @Test
+    void scrollingThroughAllPagesReturnsEveryRequestOnce() {
+        final var expected = allRequests();
+        final var fetchCallback = new RequestFetchCallback(databaseService);
+
+        final var fetched = new ArrayList<RequestKey>();
+        for (var offset = 0; offset < expected.size(); offset += PAGE_SIZE) {
+            fetched.addAll(fetch(fetchCallback, offset));
+        }
+
+        assertEquals(expected, fetched);
+        assertEquals(expected.size(), new HashSet<>(fetched).size());
+    }
+
+    @Test
+    void jumpingToAnArbitraryOffsetContinuesWithoutGaps() {
+        final var expected = allRequests();
+        final var fetchCallback = new RequestFetchCallback(databaseService);
+
+        assertEquals(expected.subList(0, PAGE_SIZE), fetch(fetchCallback, 0));
+
+        // the offset is unknown to the callback, so it falls back to offset paging once
+        final var offset = 37;
+        assertEquals(expected.subList(offset, offset + PAGE_SIZE), fetch(fetchCallback, offset));
+
+        // the following pages are sought after the last request of the previous page again
+        final var next = offset + PAGE_SIZE;
+        assertEquals(expected.subList(next, Math.min(next + PAGE_SIZE, expected.size())), fetch(fetchCallback, next));
+
+        // going back to a page fetched before returns the same requests
+        assertEquals(expected.subList(0, PAGE_SIZE), fetch(fetchCallback, 0));
+    }
+
+    @Test
+    void settingTheFilterStartsFromTheBeginning() {
+        final var fetchCallback = new RequestFetchCallback(databaseService);
+        fetch(fetchCallback, 0);
+        fetch(fetchCallback, PAGE_SIZE);
+
+        fetchCallback.setFilter("Paging Conference 1");
+        final var expected = databaseService.findRequest(0, PAGE_SIZE, "Paging Conference 1")
+                .map(RequestKey::of)
+                .toList();
+        assertEquals(expected, fetch(fetchCallback, 0));
+    }
+
+    private List<RequestKey> allRequests() {
+        final var requests = databaseService.findRequest(0, Integer.MAX_VALUE, null)
+                .map(RequestKey::of)
+                .toList();
+        assertEquals(2 + 2 * CONFERENCES, requests.size());
+        return requests;
+    }
+
+    private static List<RequestKey> fetch(@NotNull final RequestFetchCallback fetchCallback, final int offset) {
+        return fetchCallback.fetch(new Query<RequestListEntity, Void>(offset, PAGE_SIZE, List.of(), null, null))
+                .map(RequestKey::of)
+                .toList();
+    }
+
+}
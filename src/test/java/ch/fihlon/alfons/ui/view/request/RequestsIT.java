@@ -1,13 +1,16 @@
 package ch.fihlon.alfons.ui.view.request;
 
 import ch.fihlon.alfons.data.db.enums.RequestRole;
+import ch.fihlon.alfons.data.db.enums.RequestStatus;
 import ch.fihlon.alfons.data.db.tables.records.ConferenceRecord;
 import ch.fihlon.alfons.data.entity.Employee;
 import ch.fihlon.alfons.data.entity.RequestListEntity;
 import ch.fihlon.alfons.data.entity.Role;
+import ch.fihlon.alfons.data.service.DatabaseService;
 import ch.fihlon.alfons.ui.KaribuTest;
 import com.github.mvysny.kaributesting.v10.ComboBoxKt;
 import com.github.mvysny.kaributesting.v10.GridKt;
+import com.github.mvysny.kaributesting.v10.NotificationsKt;
 import com.github.mvysny.kaributools.RouterUtilsKt;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -18,6 +21,7 @@ import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
 
@@ -28,9 +32,13 @@ import static com.github.mvysny.kaributesting.v10.LocatorJ._get;
 import static com.github.mvysny.kaributesting.v10.LocatorJ._setValue;
 import static com.github.mvysny.kaributesting.v10.pro.ConfirmDialogKt._fireConfirm;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class RequestsIT extends KaribuTest {
 
+    @Autowired
+    private DatabaseService databaseService;
+
     @Test
     void userOnlySeesOwnRequestsByDefault() {
         login("jane.doe@localhost", "user", List.of(Role.USER));
@@ -121,4 +129,84 @@ class RequestsIT extends KaribuTest {
 
         GridKt.expectRows(grid, 1);
     }
+
+    @Test
+    void adminApprovesSelectedRequests() {
+        login("john.doe@localhost", "admin", List.of(Role.USER, Role.ADMIN));
+        RouterUtilsKt.navigateTo("/requests");
+        final var requestsView = _get(RequestsView.class);
+
+        @SuppressWarnings("unchecked") final Grid<RequestListEntity> grid = _get(requestsView, Grid.class);
+        GridKt.expectRows(grid, 2);
+
+        _click(_get(requestsView, Button.class, spec -> spec.withId("select-requests")));
+        final var approveButton = _get(requestsView, Button.class, spec -> spec.withId("approve-selected-requests"));
+        _assertDisabled(approveButton);
+
+        grid.select(GridKt._get(grid, 0));
+        grid.select(GridKt._get(grid, 1));
+        _assertEnabled(approveButton);
+        try {
+            _click(approveButton);
+            _fireConfirm(_get(ConfirmDialog.class));
+
+            GridKt.expectRows(grid, 2);
+            assertEquals(RequestStatus.approved, GridKt._get(grid, 0).status());
+            assertEquals(RequestStatus.approved, GridKt._get(grid, 1).status());
+            assertEquals(0, grid.getSelectedItems().size());
+            NotificationsKt.expectNotifications("2 of 2 requests approved.");
+        } finally {
+            databaseService.updateRequestStatus(1L, 1L, RequestStatus.submitted);
+            databaseService.updateRequestStatus(2L, 1L, RequestStatus.submitted);
+        }
+    }
+
+    @Test
+    void adminIsToldAboutRequestsDecidedInTheMeantime() {
+        login("john.doe@localhost", "admin", List.of(Role.USER, Role.ADMIN));
+        RouterUtilsKt.navigateTo("/requests");
+        final var requestsView = _get(RequestsView.class);
+
+        @SuppressWarnings("unchecked") final Grid<RequestListEntity> grid = _get(requestsView, Grid.class);
+        GridKt.expectRows(grid, 2);
+
+        _click(_get(requestsView, Button.class, spec -> spec.withId("select-requests")));
+        grid.select(GridKt._get(grid, 0));
+        grid.select(GridKt._get(grid, 1));
+        try {
+            _click(_get(requestsView, Button.class, spec -> spec.withId("approve-selected-requests")));
+            databaseService.updateRequestStatus(2L, 1L, RequestStatus.declined);
+            _fireConfirm(_get(ConfirmDialog.class));
+
+            NotificationsKt.expectNotifications("1 of 2 requests approved. The other requests were decided in the meantime.");
+        } finally {
+            databaseService.updateRequestStatus(1L, 1L, RequestStatus.submitted);
+            databaseService.updateRequestStatus(2L, 1L, RequestStatus.submitted);
+        }
+    }
+
+    @Test
+    void approvingRequestRefreshesOnlyItsRow() {
+        login("john.doe@localhost", "admin", List.of(Role.USER, Role.ADMIN));
+        RouterUtilsKt.navigateTo("/requests");
+        final var requestsView = _get(RequestsView.class);
+
+        @SuppressWarnings("unchecked") final Grid<RequestListEntity> grid = _get(requestsView, Grid.class);
+        GridKt.expectRows(grid, 2);
+        final var dataProvider = grid.getDataProvider();
+
+        final var actionButtons = (HorizontalLayout) GridKt._getCellComponent(grid, 0, "actions");
+        _click(_get(actionButtons, Button.class, spec -> spec.withIcon(VaadinIcon.CHECK)));
+        try {
+            _fireConfirm(_get(ConfirmDialog.class));
+
+            assertSame(dataProvider, grid.getDataProvider());
+            GridKt.expectRows(grid, 2);
+            assertEquals(RequestStatus.approved, GridKt._get(grid, 0).status());
+            assertEquals(RequestStatus.submitted, GridKt._get(grid, 1).status());
+        } finally {
+            final var approved = GridKt._get(grid, 0);
+            databaseService.updateRequestStatus(approved.employeeId(), approved.conferenceId(), RequestStatus.submitted);
+        }
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the formatting of the values shown in every row of the grids. Run with <code>-prof gc</code>
+ * to compare the allocation per row of the cached formatters with parsing the pattern on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterUtilBenchmark {
+
+    // the thread-safe alternative to a shared DecimalFormat without locking
+    private static final ThreadLocal<DecimalFormat> NUMBER_FORMAT = ThreadLocal.withInitial(() -> decimalFormat("#,##0"));
+    private static final ThreadLocal<DecimalFormat> AMOUNT_FORMAT = ThreadLocal.withInitial(() -> decimalFormat("#,##0.00"));
+
+    private final LocalDate date = LocalDate.of(2024, 10, 7);
+    private final LocalDateTime dateTime = LocalDateTime.of(2024, 10, 7, 9, 30);
+    private final long number = 1_234_567L;
+    private final BigDecimal amount = new BigDecimal("1234567.85");
+    private final ZoneId zone = ZoneId.of("America/New_York");
+
+    @Benchmark
+    public String formatDate() {
+        return FormatterUtil.formatDate(date);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return FormatterUtil.formatDateTime(dateTime);
+    }
+
+    @Benchmark
+    public String formatDateTimeInZone() {
+        return FormatterUtil.formatDateTime(dateTime, Locale.ENGLISH, zone);
+    }
+
+    @Benchmark
+    public String formatDateTimeParsingPattern() {
+        return dateTime.format(DateTimeFormatter.ofPattern(FormatterUtil.DATE_TIME_PATTERN));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatNumber() {
+        return FormatterUtil.formatNumber(number);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatNumberThreadLocalDecimalFormat() {
+        return NUMBER_FORMAT.get().format(number);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatAmount() {
+        return FormatterUtil.formatAmount(amount);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatAmountThreadLocalDecimalFormat() {
+        return AMOUNT_FORMAT.get().format(amount);
+    }
+
+    private static DecimalFormat decimalFormat(final String pattern) {
+        final var symbols = DecimalFormatSymbols.getInstance(Locale.ROOT);
+        symbols.setGroupingSeparator('\'');
+        return new DecimalFormat(pattern, symbols);
+    }
+
+}
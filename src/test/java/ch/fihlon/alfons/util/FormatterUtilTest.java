@@ -24,11 +24,23 @@ import java.lang.reflect.Modifier;
 
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -46,6 +58,28 @@ class FormatterUtilTest {
         assertEquals("", FormatterUtil.formatDateTime(null));
     }
 
+    @Test
+    void testFormatDateTimeInZone() {
+        final var dateTime = LocalDateTime.of(2024, 10, 7, 9, 30);
+        final var serverZone = ZoneId.systemDefault();
+        final var expected = dateTime.atZone(serverZone)
+                .withZoneSameInstant(ZoneId.of("Asia/Tokyo"))
+                .toLocalDateTime();
+        assertEquals(FormatterUtil.formatDateTime(expected),
+                FormatterUtil.formatDateTime(dateTime, Locale.GERMAN, ZoneId.of("Asia/Tokyo")));
+        assertEquals(FormatterUtil.formatDateTime(dateTime),
+                FormatterUtil.formatDateTime(dateTime, Locale.GERMAN, serverZone));
+        assertEquals("", FormatterUtil.formatDateTime(null, Locale.GERMAN, serverZone));
+    }
+
+    @Test
+    void testFormattersAreReused() {
+        assertSame(FormatterUtil.dateFormatter(), FormatterUtil.dateFormatter());
+        assertSame(FormatterUtil.dateTimeFormatter(), FormatterUtil.dateTimeFormatter());
+        assertSame(FormatterUtil.dateTimeFormatter(Locale.GERMAN, ZoneId.of("Europe/Zurich")),
+                FormatterUtil.dateTimeFormatter(Locale.GERMAN, ZoneId.of("Europe/Zurich")));
+    }
+
     @Test
     void testFormatNumber() {
         assertEquals("1", FormatterUtil.formatNumber(1L));
@@ -57,6 +91,59 @@ class FormatterUtilTest {
         assertEquals("1'234'567", FormatterUtil.formatNumber(1234567L));
         assertEquals("12'345'678", FormatterUtil.formatNumber(12345678L));
         assertEquals("123'456'789", FormatterUtil.formatNumber(123456789L));
+        assertEquals("0", FormatterUtil.formatNumber(0L));
+        assertEquals("-1'234", FormatterUtil.formatNumber(-1234L));
+        assertEquals("-999", FormatterUtil.formatNumber(-999L));
+        assertEquals("9'223'372'036'854'775'807", FormatterUtil.formatNumber(Long.MAX_VALUE));
+        assertEquals("-9'223'372'036'854'775'808", FormatterUtil.formatNumber(Long.MIN_VALUE));
+    }
+
+    @Test
+    void testFormatAmount() {
+        assertEquals("", FormatterUtil.formatAmount(null));
+        assertEquals("0.00", FormatterUtil.formatAmount(BigDecimal.ZERO));
+        assertEquals("0.01", FormatterUtil.formatAmount(new BigDecimal("0.005")));
+        assertEquals("0.00", FormatterUtil.formatAmount(new BigDecimal("-0.001")));
+        assertEquals("12.00", FormatterUtil.formatAmount(new BigDecimal("12")));
+        assertEquals("1'000.00", FormatterUtil.formatAmount(new BigDecimal("999.999")));
+        assertEquals("1'234.50", FormatterUtil.formatAmount(new BigDecimal("1234.5")));
+        assertEquals("-1'234'567.89", FormatterUtil.formatAmount(new BigDecimal("-1234567.891")));
+    }
+
+    @Test
+    void testFormatNumberConcurrently() throws InterruptedException, ExecutionException {
+        final var threads = 8;
+        final var executor = Executors.newFixedThreadPool(threads);
+        try {
+            final var start = new CountDownLatch(1);
+            final var results = new ArrayList<Future<Integer>>();
+            for (var thread = 0; thread < threads; thread++) {
+                final var seed = thread;
+                results.add(executor.submit(() -> {
+                    // an own DecimalFormat per thread as reference
+                    final var reference = new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.ROOT));
+                    final var symbols = reference.getDecimalFormatSymbols();
+                    symbols.setGroupingSeparator('\'');
+                    reference.setDecimalFormatSymbols(symbols);
+                    final var random = new Random(seed);
+                    start.await();
+                    var mismatches = 0;
+                    for (var i = 0; i < 100_000; i++) {
+                        final var number = random.nextLong();
+                        if (!reference.format(number).equals(FormatterUtil.formatNumber(number))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+            for (final var result : results) {
+                assertEquals(0, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     @Test
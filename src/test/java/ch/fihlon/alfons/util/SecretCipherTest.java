@@ -0,0 +1,60 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SecretCipherTest {
+
+    private static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final String OTHER_KEY = "ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=";
+
+    @Test
+    void testEncryptAndDecrypt() {
+        final var cipher = SecretCipher.of(KEY);
+        final var encrypted = cipher.encrypt("0neT1meP4ssw0rd");
+        assertFalse(encrypted.contains("0neT1meP4ssw0rd"));
+        assertEquals("0neT1meP4ssw0rd", cipher.decrypt(encrypted));
+        assertEquals("0neT1meP4ssw0rd", SecretCipher.of(KEY).decrypt(encrypted));
+    }
+
+    @Test
+    void testRandomIv() {
+        final var cipher = SecretCipher.of(KEY);
+        assertNotEquals(cipher.encrypt("secret"), cipher.encrypt("secret"));
+    }
+
+    @Test
+    void testOtherKeyCanNotDecrypt() {
+        final var encrypted = SecretCipher.of(KEY).encrypt("secret");
+        final var otherCipher = SecretCipher.of(OTHER_KEY);
+        assertThrows(IllegalStateException.class, () -> otherCipher.decrypt(encrypted));
+    }
+
+    @Test
+    void testInvalidKey() {
+        assertThrows(IllegalArgumentException.class, () -> SecretCipher.of("c2hvcnQ="));
+    }
+
+}
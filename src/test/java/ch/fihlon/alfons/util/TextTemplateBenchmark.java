@@ -0,0 +1,90 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares rendering a precompiled {@link TextTemplate} with the former regex based replacement of
+ * the variables, which rescanned the whole text once per variable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextTemplateBenchmark {
+
+    private static final String TEXT = """
+            Hello ${firstName} ${lastName}
+
+            Your request to attend ${conference} (${beginDate} - ${endDate}) was ${status} by ${approver}.
+            You can find the details of your request at ${url}.
+
+            Please contact ${approver} if you have any questions.
+            """;
+
+    private static final Map<String, String> VARIABLES = Map.of(
+            "firstName", "Jane",
+            "lastName", "Doe",
+            "conference", "Java Community Conference",
+            "beginDate", "2024-10-07",
+            "endDate", "2024-10-10",
+            "status", "approved",
+            "approver", "John Doe",
+            "url", "https://alfons.example.com/requests/");
+
+    private final TextTemplate template = TextTemplate.compile(TEXT);
+
+    @Benchmark
+    public String regexReplace() {
+        String returnValue = TEXT;
+        for (final var entry : VARIABLES.entrySet()) {
+            final var value = Matcher.quoteReplacement(entry.getValue());
+            final var regex = Pattern.quote("${%s}".formatted(entry.getKey()));
+            returnValue = returnValue.replaceAll(regex, value);
+        }
+        return returnValue;
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return TextTemplate.compile(TEXT).render(VARIABLES);
+    }
+
+    @Benchmark
+    public String renderPrecompiled() {
+        return template.render(VARIABLES);
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Alfons - Make Community Management Great Again
+ * Copyright (C) Marcus Fihlon and the individual contributors to Alfons.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ch.fihlon.alfons.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextTemplateTest {
+
+    @Test
+    void testRenderWithoutPlaceholders() {
+        assertEquals("", TextTemplate.compile("").render(null));
+        assertEquals("Hello World", TextTemplate.compile("Hello World").render(Map.of("name", "Jane")));
+    }
+
+    @Test
+    void testRenderPlaceholders() {
+        final var template = TextTemplate.compile("${greeting} ${name}, your password is: ${password}");
+        assertEquals("Hello Jane, your password is: $3cr3t\\",
+                template.render(Map.of("greeting", "Hello", "name", "Jane", "password", "$3cr3t\\")));
+        assertEquals("Hi John, your password is: ${name}",
+                template.render(Map.of("greeting", "Hi", "name", "John", "password", "${name}")));
+    }
+
+    @Test
+    void testRenderMissingValues() {
+        final var template = TextTemplate.compile("Hello ${name}!");
+        assertEquals("Hello ${name}!", template.render(null));
+        assertEquals("Hello ${name}!", template.render(Map.of("other", "value")));
+    }
+
+    @Test
+    void testIncompletePlaceholders() {
+        assertEquals("Hello ${name", TextTemplate.compile("Hello ${name").render(Map.of("name", "Jane")));
+        assertEquals("Hello $name}", TextTemplate.compile("Hello $name}").render(Map.of("name", "Jane")));
+        assertEquals("Hello Jane}", TextTemplate.compile("Hello ${name}}").render(Map.of("name", "Jane")));
+    }
+
+    @Test
+    void testText() {
+        assertEquals("", TextTemplate.compile("").text());
+        assertEquals("${greeting} ${name}, your password is: ${password}",
+                TextTemplate.compile("${greeting} ${name}, your password is: ${password}").text());
+        assertEquals("Hello ${name}} and ${other", TextTemplate.compile("Hello ${name}} and ${other").text());
+    }
+
+}